@@ -23,10 +23,15 @@ package org.teiid.resource.adapter.infinispan.hotrod;
 
 import static org.teiid.language.visitor.SQLStringVisitor.getRecordName;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.query.dsl.FilterConditionBeginContext;
 import org.infinispan.query.dsl.FilterConditionContext;
 import org.infinispan.query.dsl.Query;
@@ -35,11 +40,14 @@ import org.infinispan.query.dsl.QueryFactory;
 import org.infinispan.query.dsl.SortOrder;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.TransformationException;
+import org.teiid.language.AggregateFunction;
 import org.teiid.language.AndOr;
 import org.teiid.language.ColumnReference;
 import org.teiid.language.Comparison;
 import org.teiid.language.Condition;
+import org.teiid.language.DerivedColumn;
 import org.teiid.language.Expression;
+import org.teiid.language.GroupBy;
 import org.teiid.language.In;
 import org.teiid.language.IsNull;
 import org.teiid.language.Like;
@@ -53,8 +61,15 @@ import org.teiid.metadata.Column;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.infinispan.hotrod.InfinispanPlugin;
+import org.teiid.translator.object.CriteriaPlanner;
+import org.teiid.translator.object.IteratorSearchCursor;
 import org.teiid.translator.object.ObjectConnection;
+import org.teiid.translator.object.ObjectDataTypeManager;
+import org.teiid.translator.object.ObjectPredicate;
 import org.teiid.translator.object.ObjectVisitor;
+import org.teiid.translator.object.PagedSearchCursor;
+import org.teiid.translator.object.PredicateSearchCursor;
+import org.teiid.translator.object.SearchCursor;
 import org.teiid.translator.object.SearchType;
 
 
@@ -121,7 +136,7 @@ public final class DSLSearch implements SearchType  {
 
 		
 	@Override
-	public List<Object> performSearch(ObjectVisitor visitor,
+	public SearchCursor performSearch(ObjectVisitor visitor,
 		  ExecutionContext executionContext) throws TranslatorException  {			
 		try {
 			return performSearch(visitor);
@@ -132,71 +147,202 @@ public final class DSLSearch implements SearchType  {
 	}
 	
 	public List<Object> getAll() throws TranslatorException  {	
-		
 		try {
-			QueryBuilder qb = getQueryBuilder(conn);
-			
-			Query query = qb.build();
-			List<Object> results = query.list();
-			if (results == null) {
-	               return Collections.emptyList();
+			return getAllObjects();
+		} finally {
+			conn = null;
+		}
+	}
+	
+	/**
+	 * @param fullScanBatchSize is the number of objects to read per remote iteration batch, see 
+	 * {@link ObjectVisitor#getFullScanBatchSize()}.  Zero or less reads all the objects using a single query.
+	 * @return SearchCursor of all the objects in the cache, which is to be closed once it's read
+	 * @throws TranslatorException
+	 */
+	public SearchCursor getAll(int fullScanBatchSize) throws TranslatorException  {	
+		try {
+			if (fullScanBatchSize > 0) {
+				// the objects are streamed in batches, instead of the whole cache being returned in one query response
+				return performFullScan(null, fullScanBatchSize, 0);
 			}
-
-			return results;
-
+			return new IteratorSearchCursor(getAllObjects().iterator());
 		} finally {
 			conn = null;
 		}
+	}
+	
+	private List<Object> getAllObjects() throws TranslatorException  {
+		QueryBuilder qb = getQueryBuilder(conn);
+		
+		Query query = qb.build();
+		List<Object> results = query.list();
+		if (results == null) {
+               return Collections.emptyList();
+		}
 
+		return results;
 	}
 	
-	private List<Object> performSearch(ObjectVisitor visitor) throws TranslatorException  {			
+	private SearchCursor performSearch(ObjectVisitor visitor) throws TranslatorException  {			
 
-		Condition where = visitor.getWhereCriteria();
-		OrderBy orderby = visitor.getOrderBy();		
+		// an equality or IN on the key is read directly from the cache, which is much cheaper than a query
+		SearchCursor keyCursor = performKeySearch(visitor);
+		if (keyCursor != null) {
+			return keyCursor;
+		}
+		
+		// the criteria the index can't serve is evaluated against the objects the query returns,
+		// so the query isn't limited, and returns the objects instead of the selected attributes
+		CriteriaPlanner plan = CriteriaPlanner.plan(visitor, conn);
+		Condition where = plan.getIndexedCriteria();
+		ObjectPredicate residual = ObjectPredicate.compile(plan.getResidualCriteria(), visitor, conn);
+		
+		// the aggregates are calculated by the query when it evaluates all the criteria, otherwise 
+		// the objects are returned, and the execution aggregates, sorts and limits the groups
+		boolean aggregate = visitor.isAggregateQuery() && plan.isAggregatedByQuery();
+		OrderBy orderby = (visitor.isAggregateQuery() && !aggregate ? null : visitor.getOrderBy());
+
+		if (visitor.getFullScanBatchSize() > 0 && where == null && orderby == null && !aggregate) {
+			// none of the criteria can use the index, so the whole cache is streamed, instead of being read using a single query.  
+			// The server converts the objects to the selected attributes, when there's no criteria left to evaluate
+			String[] projection = (residual == null ? visitor.getProjectedAttributeNames() : null);
+			SearchCursor cursor = performFullScan(projection, visitor.getFullScanBatchSize(), (residual == null ? visitor.getSearchLimit() : 0));
+			visitor.setProjectionPushedDown(projection != null);
+			return PredicateSearchCursor.filter(cursor, residual, visitor.getSearchLimit());
+		}
 
 	    QueryBuilder qb = getQueryBuilder(conn);	
-	    
-	    if (visitor.getLimit() > 0) {
-	    	qb.maxResults(visitor.getLimit());
-	    }	    
 	    	    
+	    if (aggregate) {
+	    	// the aggregate values are calculated by the query, and returned as an Object[] per group
+	    	qb.select(getAggregateProjection(visitor));
+	    	visitor.setProjectionPushedDown(true);
+	    } else if (residual == null) {
+		    // only the selected attributes are returned, as an Object[] per result
+		    String[] projection = visitor.getProjectedAttributeNames();
+		    if (projection != null) {
+		    	qb.select(projection);
+		    	visitor.setProjectionPushedDown(true);
+		    }
+	    }
+	    
 	    if (orderby != null) {
 		    List<SortSpecification> sss = orderby.getSortSpecifications();
 		    for (SortSpecification spec:sss) {
 		    	Expression exp = spec.getExpression();
-		    	Column mdIDElement = ((ColumnReference) exp).getMetadataObject();
 		    	SortOrder so = SortOrder.ASC;
 		    	if (spec.getOrdering().name().equalsIgnoreCase(SortOrder.DESC.name())) {
 		    		so = SortOrder.DESC;
 		    	}
-		    	qb = qb.orderBy(getRecordName(mdIDElement), so);
+		    	if (aggregate) {
+		    		qb = qb.orderBy(getAggregateExpression(getSelectExpression(exp, visitor), visitor), so);
+		    	} else {
+		    		Column mdIDElement = ((ColumnReference) exp).getMetadataObject();
+		    		qb = qb.orderBy(getRecordName(mdIDElement), so);
+		    	}
 		    }
 	    }
 	    	
 	    FilterConditionContext fcc = buildQueryFromWhereClause(where, qb, null);	 
 		 			
-		List<Object> results =  null;
-				
-		Query query = null;
-		if (fcc != null) {
-			query = fcc.toBuilder().build();
-			results = query.list();
-
-			if (results == null) {
-				return Collections.emptyList();
+		// the builder is bound to the target cache now, but the pages aren't read until the cursor is read
+		@SuppressWarnings("rawtypes")
+		final QueryBuilder builder = (fcc != null ? fcc.toBuilder() : qb);
+		
+		if (aggregate) {
+			addGroupBy(visitor, builder);
+		}
+		
+		// the groups are limited when the query aggregates, see ObjectVisitor#getSearchLimit()
+		int limit = (residual == null ? visitor.getSearchLimit() : 0);
+		SearchCursor cursor = new PagedSearchCursor(visitor.getFetchSize(), visitor.getPrefetchDepth(), visitor.getPrefetchExecutor(), limit) {
+			@Override
+			protected List<?> fetchPage(long startOffset, int maxResults) throws TranslatorException {
+				builder.startOffset(startOffset);
+				if (maxResults > 0) {
+					builder.maxResults(maxResults);
+				}
+				Query query = builder.build();
+				return query.list();
 			}
-			
-		} else  {
-		   query = qb.build();
-           results = query.list();
-           if (results == null) {
-                   return Collections.emptyList();
-           }
+		};
+		return PredicateSearchCursor.filter(cursor, residual, visitor.getSearchLimit());
+		
+	}
+	
+	/*
+	 * Streams the objects using remote iteration, so the server sends the objects in batches as they're 
+	 * read, instead of a query returning all the results in one response, or re-running the query per page.
+	 * The query is used as the converter on the server, so only the selected attributes are sent when 
+	 * there's a projection.
+	 */
+	@SuppressWarnings("unchecked")
+	private SearchCursor performFullScan(String[] projection, int batchSize, int limit) throws TranslatorException  {
+		@SuppressWarnings("rawtypes")
+		QueryBuilder qb = getQueryBuilder(conn);
+		if (projection != null) {
+			qb.select(projection);
 		}
-
-		return results;
+		Query query = qb.build();
 		
+		CloseableIterator<Map.Entry<Object, Object>> it = conn.getCache().retrieveEntriesByQuery(query, null, batchSize);
+		return new RemoteIterationSearchCursor(it, limit);
+	}
+	
+	private SearchCursor performKeySearch(ObjectVisitor visitor) throws TranslatorException  {
+		if (visitor.getOrderBy() != null || conn.getCacheKeyClassType() == null) {
+			return null;
+		}
+		
+		Set<Object> keys = getKeys(visitor, conn);
+		if (keys == null) {
+			return null;
+		}
+		
+		// the objects are read now, because the staging target is only set while the search is performed
+		List<Object> objects = getValues(keys, conn.getAll(keys), conn.getCacheClassType(), visitor.getSearchLimit());
+		return new IteratorSearchCursor(objects.iterator());
+	}
+	
+	/*
+	 * Returns the key values converted to the cache key type, or null when the criteria isn't only on the key 
+	 */
+	private static Set<Object> getKeys(ObjectVisitor visitor, ObjectConnection conn) throws TranslatorException {
+		List<Object> values = visitor.getKeyValues(conn.getPkField());
+		if (values == null) {
+			return null;
+		}
+		
+		ObjectDataTypeManager dtm = conn.getClassRegistry().getObjectDataTypeManager();
+		Set<Object> keys = new LinkedHashSet<Object>(values.size());
+		for (Object value : values) {
+			try {
+				keys.add(dtm.convertToObjectType(value, conn.getCacheKeyClassType()));
+			} catch (TransformationException e) {
+				throw new TranslatorException(e);
+			}
+		}
+		return keys;
+	}
+	
+	/*
+	 * Returns the objects that were found, in the order the keys were specified.  Keys can overlap 
+	 * across the types in the cache, so like the query, only the objects of the cache class type are returned
+	 */
+	private static List<Object> getValues(Set<Object> keys, Map<Object, Object> results, Class<?> type, int maxResults) {
+		List<Object> values = new ArrayList<Object>(keys.size());
+		for (Object key : keys) {
+			Object value = results.get(key);
+			if (value == null || !type.isInstance(value)) {
+				continue;
+			}
+			values.add(value);
+			if (maxResults > 0 && values.size() == maxResults) {
+				break;
+			}
+		}
+		return values;
 	}
 	
 	@SuppressWarnings("rawtypes")
@@ -471,6 +617,208 @@ public final class DSLSearch implements SearchType  {
 
 	}	
 
+	@SuppressWarnings("rawtypes")
+	private static void addGroupBy(ObjectVisitor visitor, QueryBuilder builder) throws TranslatorException {
+		GroupBy groupBy = visitor.getGroupBy();
+		Condition having = visitor.getHavingCriteria();
+		if (groupBy == null) {
+			if (having != null) {
+				throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25054, having.toString()));
+			}
+			return;
+		}
+		
+		List<Expression> elements = groupBy.getElements();
+		String[] names = new String[elements.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = getAggregateAttributeName(elements.get(i));
+		}
+		builder.groupBy(names);
+		
+		// once grouped, the conditions added to the builder are applied to the groups
+		buildQueryFromHavingClause(having, builder, null, visitor);
+	}
+	
+	private static org.infinispan.query.dsl.Expression[] getAggregateProjection(ObjectVisitor visitor) throws TranslatorException {
+		List<DerivedColumn> cols = visitor.getProjectedColumns();
+		org.infinispan.query.dsl.Expression[] projection = new org.infinispan.query.dsl.Expression[cols.size()];
+		for (int i = 0; i < projection.length; i++) {
+			projection[i] = getAggregateExpression(cols.get(i).getExpression(), visitor);
+		}
+		return projection;
+	}
+	
+	/*
+	 * An ORDER BY on an aggregate value references the select column by its alias
+	 */
+	private static Expression getSelectExpression(Expression exp, ObjectVisitor visitor) {
+		if (exp instanceof ColumnReference && ((ColumnReference) exp).getMetadataObject() == null) {
+			String alias = ((ColumnReference) exp).getName();
+			for (DerivedColumn dc : visitor.getProjectedColumns()) {
+				if (alias.equalsIgnoreCase(dc.getAlias())) {
+					return dc.getExpression();
+				}
+			}
+		}
+		return exp;
+	}
+	
+	private static org.infinispan.query.dsl.Expression getAggregateExpression(Expression exp, ObjectVisitor visitor) throws TranslatorException {
+		if (!(exp instanceof AggregateFunction)) {
+			return org.infinispan.query.dsl.Expression.property(getAggregateAttributeName(exp));
+		}
+		
+		AggregateFunction af = (AggregateFunction) exp;
+		if (af.isDistinct()) {
+			throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25052, new Object[] { exp, "aggregation" }));
+		}
+
+		String name = null;
+		if (af.getExpression() == null) {
+			// COUNT(*) counts the primary key, because every object has one
+			Column pk = visitor.getPrimaryKeyCol();
+			if (pk == null) {
+				throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25052, new Object[] { exp, "aggregation" }));
+			}
+			name = getRecordName(pk);
+		} else {
+			name = getAggregateAttributeName(af.getExpression());
+		}
+		
+		String function = af.getName();
+		if (AggregateFunction.COUNT.equalsIgnoreCase(function)) {
+			return org.infinispan.query.dsl.Expression.count(name);
+		} else if (AggregateFunction.SUM.equalsIgnoreCase(function)) {
+			return org.infinispan.query.dsl.Expression.sum(name);
+		} else if (AggregateFunction.AVG.equalsIgnoreCase(function)) {
+			return org.infinispan.query.dsl.Expression.avg(name);
+		} else if (AggregateFunction.MIN.equalsIgnoreCase(function)) {
+			return org.infinispan.query.dsl.Expression.min(name);
+		} else if (AggregateFunction.MAX.equalsIgnoreCase(function)) {
+			return org.infinispan.query.dsl.Expression.max(name);
+		}
+		throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25052, new Object[] { exp, "aggregation" }));
+	}
+	
+	/*
+	 * Only the attributes of the root object can be grouped or aggregated, 
+	 * not the attributes of a child object or the root object itself
+	 */
+	private static String getAggregateAttributeName(Expression exp) throws TranslatorException {
+		if (exp instanceof ColumnReference) {
+			Column c = ((ColumnReference) exp).getMetadataObject();
+			if (c != null) {
+				String name = getRecordName(c);
+				if (name.indexOf(".") < 0 && !name.equalsIgnoreCase("this")) { //$NON-NLS-1$ //$NON-NLS-2$
+					return name;
+				}
+			}
+		}
+		throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25052, new Object[] { exp, "aggregation" }));
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static FilterConditionContext buildQueryFromHavingClause(Condition criteria, QueryBuilder queryBuilder, FilterConditionBeginContext fcbc, ObjectVisitor visitor)
+			throws TranslatorException {
+
+		if (criteria == null) return null;
+		
+		if (criteria instanceof AndOr) {
+			AndOr crit = (AndOr) criteria;
+			FilterConditionContext f = buildQueryFromHavingClause(
+					crit.getLeftCondition(), queryBuilder, fcbc, visitor);
+			FilterConditionBeginContext next = null;
+			if (crit.getOperator() == AndOr.Operator.AND) {
+				next = f.and();
+			} else {
+				next = f.or();
+			}
+			return buildQueryFromHavingClause(crit.getRightCondition(), queryBuilder, next, visitor);
+
+		} else if (criteria instanceof Comparison) {
+			return visitHaving((Comparison) criteria, queryBuilder, fcbc, visitor);
+		} 
+		
+		throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25054, criteria.toString()));
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static FilterConditionContext visitHaving(Comparison obj, QueryBuilder queryBuilder, FilterConditionBeginContext fcbc, ObjectVisitor visitor) throws TranslatorException {
+		LogManager.logTrace(LogConstants.CTX_CONNECTOR,
+				"Parsing HAVING Comparison criteria."); //$NON-NLS-1$
+		
+		Comparison.Operator op = obj.getOperator();
+		Expression exp = obj.getLeftExpression();
+		Expression literal = obj.getRightExpression();
+		if (exp instanceof Literal) {
+			// reverse the comparison, so the aggregate value is on the left
+			literal = exp;
+			exp = obj.getRightExpression();
+			switch (op) {
+			case GT: op = Comparison.Operator.LT; break;
+			case GE: op = Comparison.Operator.LE; break;
+			case LT: op = Comparison.Operator.GT; break;
+			case LE: op = Comparison.Operator.GE; break;
+			default: break;
+			}
+		}
+		if (!(literal instanceof Literal)) {
+			throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25052, new Object[] { obj, "HAVING" }));
+		}
+		
+		Object value = ((Literal) literal).getValue();
+		if (value == null) {
+			throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25051));
+		}
+		value = convertAggregateValue(value, exp);
+		
+		org.infinispan.query.dsl.Expression attr = getAggregateExpression(exp, visitor);
+		FilterConditionBeginContext begin = (fcbc == null ? queryBuilder : fcbc);
+
+		switch (op) {
+		case NE:
+			return begin.not().having(attr).eq(value);
+		case EQ:
+			return begin.having(attr).eq(value);
+		case GT:
+			return begin.having(attr).gt(value);
+		case GE:
+			return begin.having(attr).gte(value);
+		case LT:
+			return begin.having(attr).lt(value);
+		case LE:
+			return begin.having(attr).lte(value);
+		default:
+			throw new TranslatorException(InfinispanPlugin.Util.gs(InfinispanPlugin.Event.TEIID25050, new Object[] { op, "NE, EQ, GT, GE, LT, LE" }));
+		}
+	}
+	
+	// convert the value to the type that the query returns for the aggregate
+	private static Object convertAggregateValue(Object value, Expression exp) throws TranslatorException {
+		if (exp instanceof AggregateFunction) {
+			AggregateFunction af = (AggregateFunction) exp;
+			String function = af.getName();
+			if (value instanceof Number) {
+				Number n = (Number) value;
+				if (AggregateFunction.COUNT.equalsIgnoreCase(function)) {
+					return n.longValue();
+				} else if (AggregateFunction.AVG.equalsIgnoreCase(function)) {
+					return n.doubleValue();
+				} else if (AggregateFunction.SUM.equalsIgnoreCase(function)) {
+					if (n instanceof Double || n instanceof Float || n instanceof BigDecimal) {
+						return n.doubleValue();
+					}
+					return n.longValue();
+				}
+			}
+			exp = af.getExpression();
+		}
+		if (exp instanceof ColumnReference) {
+			return convertValue(value, ((ColumnReference) exp).getMetadataObject());
+		}
+		return value;
+	}
+	
 	protected static Object escapeReservedChars(final Object value) {
 		if (value instanceof String) {
 		} else {
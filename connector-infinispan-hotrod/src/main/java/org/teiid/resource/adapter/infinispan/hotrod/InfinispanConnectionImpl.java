@@ -25,8 +25,16 @@ package org.teiid.resource.adapter.infinispan.hotrod;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -41,11 +49,14 @@ import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.sasl.AuthorizeCallback;
 import javax.security.sasl.RealmCallback;
 
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.Search;
 import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
 import org.infinispan.client.hotrod.marshall.ProtoStreamMarshaller;
+import org.infinispan.protostream.ProtobufUtil;
 import org.infinispan.protostream.SerializationContext;
 import org.infinispan.protostream.descriptors.Descriptor;
 import org.infinispan.query.dsl.QueryFactory;
@@ -60,6 +71,7 @@ import org.teiid.translator.TranslatorException;
 import org.teiid.translator.infinispan.hotrod.InfinispanHotRodConnection;
 import org.teiid.translator.infinispan.hotrod.InfinispanPlugin;
 import org.teiid.translator.object.DDLHandler;
+import org.teiid.translator.object.ObjectMerge;
 import org.teiid.translator.object.SearchType;
 import org.teiid.util.Version;
 
@@ -208,6 +220,73 @@ public class InfinispanConnectionImpl extends BasicConnection implements Infinis
 		getCache().put(key, value);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#addIfAbsent(java.lang.Object, java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Object addIfAbsent(Object key, Object value) throws TranslatorException {
+		// the server only returns the existing object when asked to
+		return getCache().withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Hot Rod doesn't support compute, so the merged object is written only if the 
+	 * object in the cache still has the version that was merged, otherwise the merge is retried.
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#upsert(java.lang.Object, java.lang.Object, org.teiid.translator.object.ObjectMerge)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void upsert(Object key, Object value, ObjectMerge merge) throws TranslatorException {
+		RemoteCache cache = getCache();
+		while (true) {
+			MetadataValue<Object> existing = cache.getWithMetadata(key);
+			if (existing == null) {
+				if (cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value) == null) {
+					return;
+				}
+			} else if (cache.replaceWithVersion(key, merge.merge(existing.getValue()), existing.getVersion())) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#addAllIfAbsent(java.util.Map)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<Object, Object> addAllIfAbsent(Map<Object, Object> values) throws TranslatorException {
+		RemoteCache cache = getCache();
+		Map<Object, Future<Object>> adds = new LinkedHashMap<Object, Future<Object>>();
+		for (Map.Entry<Object, Object> e : values.entrySet()) {
+			// the flags only apply to the next operation
+			adds.put(e.getKey(), cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsentAsync(e.getKey(), e.getValue()));
+		}
+		Map<Object, Object> result = new HashMap<Object, Object>();
+		try {
+			for (Map.Entry<Object, Future<Object>> e : adds.entrySet()) {
+				Object existing = e.getValue().get();
+				if (existing != null) {
+					result.put(e.getKey(), existing);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			throw new TranslatorException(e.getCause());
+		}
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 *
@@ -215,7 +294,74 @@ public class InfinispanConnectionImpl extends BasicConnection implements Infinis
 	 */
 	@Override
 	public Object remove(Object key) throws TranslatorException {
-		return getCache().remove(key);
+		// the server only returns the removed object when asked to
+		return getCache().withFlags(Flag.FORCE_RETURN_VALUE).remove(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Hot Rod doesn't support a conditional remove by value, so the object is removed only if 
+	 * the object in the cache still has the version that was compared to the value.
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#remove(java.lang.Object, java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object key, Object value) throws TranslatorException {
+		RemoteCache cache = getCache();
+		MetadataValue<Object> existing = cache.getWithMetadata(key);
+		if (existing == null || !isSameObject(existing.getValue(), value)) {
+			return false;
+		}
+		return cache.removeWithVersion(key, existing.getVersion());
+	}
+	
+	/*
+	 * The objects read from the server are copies, which don't have to implement equals, 
+	 * so the objects are compared by their marshalled form
+	 */
+	private boolean isSameObject(Object existing, Object value) throws TranslatorException {
+		if (existing == value) {
+			return true;
+		}
+		if (existing == null || value == null || existing.getClass() != value.getClass()) {
+			return false;
+		}
+		try {
+			SerializationContext ctx = getContext();
+			return Arrays.equals(ProtobufUtil.toWrappedByteArray(ctx, existing), ProtobufUtil.toWrappedByteArray(ctx, value));
+		} catch (IOException e) {
+			throw new TranslatorException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#removeAll(java.util.Collection)
+	 */
+	@Override
+	public void removeAll(Collection<?> keys) throws TranslatorException {
+		RemoteCache cache = getCache();
+		List<Future<?>> removes = new ArrayList<Future<?>>(keys.size());
+		for (Object key : keys) {
+			removes.add(cache.removeAsync(key));
+		}
+		waitFor(removes);
+	}
+	
+	private static void waitFor(List<Future<?>> futures) throws TranslatorException {
+		try {
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			throw new TranslatorException(e.getCause());
+		}
 	}
 
 	/**
@@ -228,6 +374,25 @@ public class InfinispanConnectionImpl extends BasicConnection implements Infinis
 	public void update(Object key, Object value) throws TranslatorException {
 		getCache().replace(key, value);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Hot Rod doesn't support a conditional replace by value, so the object is replaced only if 
+	 * the object in the cache still has the version that was compared to the old value.
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#replace(java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean replace(Object key, Object oldValue, Object newValue) throws TranslatorException {
+		RemoteCache cache = getCache();
+		MetadataValue<Object> existing = cache.getWithMetadata(key);
+		if (existing == null || !isSameObject(existing.getValue(), oldValue)) {
+			return false;
+		}
+		return cache.replaceWithVersion(key, newValue, existing.getVersion());
+	}
 	private RemoteCache getTargetCache() throws TranslatorException {
 	    return getCacheContainer().getCache(getTargetCacheName());
 	}
@@ -262,6 +427,17 @@ public class InfinispanConnectionImpl extends BasicConnection implements Infinis
 	public Object get(Object key) throws TranslatorException {
 		return getCache().get(key);
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#getAll(java.util.Collection)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) throws TranslatorException {
+		return getCache().getAll(new HashSet<Object>(keys));
+	}
 
 	/**
 	 * {@inheritDoc}
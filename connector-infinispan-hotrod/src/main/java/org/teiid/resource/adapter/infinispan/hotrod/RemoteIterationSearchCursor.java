@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.resource.adapter.infinispan.hotrod;
+
+import java.util.Map;
+
+import org.infinispan.commons.util.CloseableIterator;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.SearchCursor;
+
+/**
+ * RemoteIterationSearchCursor streams the values of the entries returned by a Hot Rod remote iteration.
+ * The entries are sent by the server in batches as they're read, and the iteration is closed on the
+ * server when the cursor is closed, exhausted or reaches the limit.
+ */
+class RemoteIterationSearchCursor implements SearchCursor {
+	
+	private CloseableIterator<Map.Entry<Object, Object>> it;
+	private int limit;
+	private int count = 0;
+	
+	/**
+	 * @param iterator is the remote iteration to read
+	 * @param limit is the maximum number of objects to return, zero or less indicates no limit
+	 */
+	RemoteIterationSearchCursor(CloseableIterator<Map.Entry<Object, Object>> iterator, int limit) {
+		this.it = iterator;
+		this.limit = limit;
+	}
+
+	@Override
+	public boolean hasNext() throws TranslatorException {
+		if (it == null) {
+			return false;
+		}
+		try {
+			if ((limit > 0 && count >= limit) || !it.hasNext()) {
+				close();
+				return false;
+			}
+			return true;
+		} catch (RuntimeException e) {
+			close();
+			throw new TranslatorException(e);
+		}
+	}
+
+	@Override
+	public Object next() throws TranslatorException {
+		if (!hasNext()) {
+			return null;
+		}
+		try {
+			count++;
+			return it.next().getValue();
+		} catch (RuntimeException e) {
+			close();
+			throw new TranslatorException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		CloseableIterator<Map.Entry<Object, Object>> i = it;
+		it = null;
+		if (i != null) {
+			i.close();
+		}
+	}
+
+}
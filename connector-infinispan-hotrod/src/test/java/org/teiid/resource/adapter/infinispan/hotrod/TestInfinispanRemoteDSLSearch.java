@@ -0,0 +1,276 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.resource.adapter.infinispan.hotrod;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.query.dsl.Query;
+import org.jboss.as.quickstarts.datagrid.hotrod.query.domain.PersonCacheSource;
+import org.jboss.as.quickstarts.datagrid.hotrod.query.domain.PhoneNumber;
+import org.jboss.as.quickstarts.datagrid.hotrod.query.domain.PhoneType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.language.Select;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.infinispan.hotrod.InfinispanHotRodConnection;
+import org.teiid.translator.infinispan.hotrod.InfinispanHotRodExecutionFactory;
+import org.teiid.translator.object.ObjectConnection;
+import org.teiid.translator.object.ObjectExecution;
+import org.teiid.translator.object.SearchCursor;
+
+/**
+ * Tests the DSL queries, and the reads by key, that the searches send to a remote cache
+ */
+@SuppressWarnings("nls")
+public class TestInfinispanRemoteDSLSearch {
+	
+	private static final String PERSON_DDL = 
+			"CREATE FOREIGN TABLE Person (" +
+			"	id integer NOT NULL OPTIONS (NAMEINSOURCE 'id', SEARCHABLE 'Searchable', NATIVE_TYPE 'int'), " +
+			"	email string OPTIONS (NAMEINSOURCE 'email', SEARCHABLE 'Searchable', NATIVE_TYPE 'java.lang.String'), " +
+			"	name string OPTIONS (NAMEINSOURCE 'name', SEARCHABLE 'Searchable', NATIVE_TYPE 'java.lang.String'), " +
+			"	CONSTRAINT PK_ID PRIMARY KEY(id)" +
+			") OPTIONS (UPDATABLE TRUE); " +
+			"CREATE FOREIGN TABLE PhoneNumber (" +
+			"	number string OPTIONS (NAMEINSOURCE 'phones.number', SEARCHABLE 'Searchable', NATIVE_TYPE 'java.lang.String'), " +
+			"	id integer NOT NULL OPTIONS (NAMEINSOURCE 'id', SELECTABLE FALSE, UPDATABLE FALSE, SEARCHABLE 'Searchable', NATIVE_TYPE 'int'), " +
+			"	CONSTRAINT FK_PERSON FOREIGN KEY(id) REFERENCES Person (id) OPTIONS (NAMEINSOURCE 'phones')" +
+			") OPTIONS (UPDATABLE TRUE);";
+	
+	private static RemoteInfinispanTestHelper RemoteServer = new RemoteInfinispanTestHelper();
+	private static InfinispanManagedConnectionFactory factory = null;
+	private static InfinispanHotRodConnection CONNECTION;
+	private static TranslationUtility translationUtility;
+	private static InfinispanHotRodExecutionFactory TRANS_FACTORY;
+	private static ExecutionContext context;
+
+	@BeforeClass
+    public static void beforeEachClass() throws Exception {  
+		RemoteServer.startServer();
+		
+  		File f = new File("./src/test/resources/jdg.properties");
+  		
+  		Properties props = PropertiesUtils.load(f.getAbsolutePath());
+  		props.setProperty("infinispan.client.hotrod.server_list", RemoteInfinispanTestHelper.hostAddress() + ":" + RemoteInfinispanTestHelper.hostPort());
+		
+  		PropertiesUtils.print("./target/hotrod-client.properties", props);
+
+		factory = new InfinispanManagedConnectionFactory();
+
+		factory.setHotRodClientPropertiesFile("./target/hotrod-client.properties");
+		factory.setCacheTypeMap(RemoteInfinispanTestHelper.PERSON_CACHE_NAME + ":" + RemoteInfinispanTestHelper.PERSON_CLASS.getName()+ ";" + RemoteInfinispanTestHelper.PKEY_COLUMN + ":" + Integer.class.getName());
+		factory.setChildClasses(PersonCacheSource.ADDRESSTYPE_CLASS_NAME + "," + PersonCacheSource.PHONENUMBER_CLASS_NAME);
+		
+		CONNECTION = factory.createConnectionFactory().getConnection();
+		PersonCacheSource.loadCache(CONNECTION.getCache());
+		
+		translationUtility = new TranslationUtility(RealMetadataFactory.fromDDL(PERSON_DDL, "PersonVDB", "Person"));
+		
+		context = mock(ExecutionContext.class);
+		
+		TRANS_FACTORY = new InfinispanHotRodExecutionFactory();
+		TRANS_FACTORY.start();
+	}
+	
+	@AfterClass
+    public static void closeConnection() throws Exception {
+		try {
+			CONNECTION.cleanUp();
+			factory.cleanUp();
+		} finally {
+			RemoteServer.releaseServer();
+		}
+    }
+	
+	@Test public void testAggregates() throws Exception {
+		List<?> row = performTest("select count(*), sum(id), avg(id), min(id), max(id) From Person where id <= 4", 1, 5).get(0);
+		
+		assertEquals(4, ((Number) row.get(0)).intValue());
+		assertEquals(10, ((Number) row.get(1)).longValue());
+		assertEquals(2.5, ((Number) row.get(2)).doubleValue(), 0);
+		assertEquals(1, ((Number) row.get(3)).intValue());
+		assertEquals(4, ((Number) row.get(4)).intValue());
+	}
+	
+	@Test public void testGroupByHaving() throws Exception {
+		List<List<?>> rows = performTest("select name, count(*) From Person where id > 0 group by name having count(*) = 1 order by name limit 2", 2, 2);
+		
+		assertEquals("Person 1", rows.get(0).get(0));
+		assertEquals("Person 10", rows.get(1).get(0));
+		assertEquals(1, ((Number) rows.get(1).get(1)).intValue());
+	}
+	
+	@Test public void testAggregateResidualCriteria() throws Exception {
+		// IS NULL isn't evaluated by the query, so the persons are counted by the execution
+		List<?> row = performTest("select count(*), max(name) From Person where email is null", 1, 2).get(0);
+		
+		assertEquals(PersonCacheSource.NUMPERSONS, ((Number) row.get(0)).intValue());
+		assertEquals("Person 9", row.get(1));
+	}
+	
+	@Test public void testAggregateChildTable() throws Exception {
+		// the phone numbers are counted, not the persons they belong to
+		List<?> row = performTest("select count(*) From PhoneNumber", 1, 1).get(0);
+		
+		assertEquals(PersonCacheSource.NUMPERSONS * PersonCacheSource.NUMPHONES, ((Number) row.get(0)).intValue());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testKeySearch() throws Exception {
+		InfinispanHotRodConnection conn = spy(CONNECTION);
+		RemoteCache<Object, Object> cache = spy((RemoteCache<Object, Object>) CONNECTION.getCache());
+		doReturn(cache).when(conn).getCache();
+		
+		List<List<?>> rows = performTest(conn, "select id, name From Person where id = 3", 1, 2);
+		assertEquals("Person 3", rows.get(0).get(1));
+		
+		// the persons are returned in the order of the keys, and the keys that aren't found are skipped
+		rows = performTest(conn, "select id, name From Person where id in (5, 50, 2)", 2, 2);
+		assertEquals(5, rows.get(0).get(0));
+		assertEquals("Person 2", rows.get(1).get(1));
+		
+		// the persons are read by key, instead of by a query
+		verify(cache, times(2)).getAll(anySetOf(Object.class));
+		verify(conn, never()).getQueryFactory();
+	}
+	
+	@Test public void testKeySearchKeyTypeConversion() throws Exception {
+		// the key column is a long, where as the keys in the cache are integers
+		TranslationUtility util = new TranslationUtility(RealMetadataFactory.fromDDL(PERSON_DDL.replace(" integer ", " long "), "PersonVDB", "Person"));
+		
+		List<List<?>> rows = performTest(util, CONNECTION, "select id, name From Person where id in (7, 8)", 2, 2);
+		assertEquals(7L, rows.get(0).get(0));
+		assertEquals("Person 8", rows.get(1).get(1));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testKeySearchOtherType() throws Exception {
+		RemoteCache<Object, Object> cache = (RemoteCache<Object, Object>) CONNECTION.getCache();
+		cache.put(100, new PhoneNumber("(111)222-3450", PhoneType.HOME));
+		try {
+			// like the query, only the objects of the cache class type are returned
+			List<List<?>> rows = performTest("select id, name From Person where id in (1, 100)", 1, 2);
+			assertEquals("Person 1", rows.get(0).get(1));
+			
+			performTest("select id, name From Person where id = 100", 0, 2);
+		} finally {
+			cache.remove(100);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testFullScan() throws Exception {
+		InfinispanHotRodConnection conn = spy(CONNECTION);
+		RemoteCache<Object, Object> cache = spy((RemoteCache<Object, Object>) CONNECTION.getCache());
+		doReturn(cache).when(conn).getCache();
+		
+		TRANS_FACTORY.setFullScanBatchSize(3);
+		try {
+			// the index is used for the criteria, instead of the whole cache being streamed
+			List<List<?>> rows = performTest(conn, "select name From Person where name = 'Person 2'", 1, 1);
+			assertEquals("Person 2", rows.get(0).get(0));
+			verify(cache, never()).retrieveEntriesByQuery(any(Query.class), anySetOf(Integer.class), eq(3));
+			
+			// the criteria that can't use the index is evaluated against the streamed objects
+			performTest(conn, "select name From Person where email is null", PersonCacheSource.NUMPERSONS, 1);
+			verify(cache).retrieveEntriesByQuery(any(Query.class), anySetOf(Integer.class), eq(3));
+		} finally {
+			TRANS_FACTORY.setFullScanBatchSize(0);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testGetAll() throws Exception {
+		InfinispanHotRodConnection conn = spy(CONNECTION);
+		RemoteCache<Object, Object> cache = spy((RemoteCache<Object, Object>) CONNECTION.getCache());
+		doReturn(cache).when(conn).getCache();
+		
+		assertEquals(PersonCacheSource.NUMPERSONS, count(new DSLSearch(conn).getAll(0)));
+		verify(cache, never()).retrieveEntriesByQuery(any(Query.class), anySetOf(Integer.class), anyInt());
+		
+		assertEquals(PersonCacheSource.NUMPERSONS, count(new DSLSearch(conn).getAll(3)));
+		verify(cache).retrieveEntriesByQuery(any(Query.class), anySetOf(Integer.class), eq(3));
+	}
+	
+	private static int count(SearchCursor cursor) throws Exception {
+		try {
+			int cnt = 0;
+			while (cursor.hasNext()) {
+				cursor.next();
+				cnt++;
+			}
+			assertFalse(cursor.hasNext());
+			return cnt;
+		} finally {
+			cursor.close();
+		}
+	}
+	
+	private List<List<?>> performTest(String sql, int rowcnt, int colCount) throws Exception {
+		return performTest(CONNECTION, sql, rowcnt, colCount);
+	}
+	
+	private List<List<?>> performTest(ObjectConnection conn, String sql, int rowcnt, int colCount) throws Exception {
+		return performTest(translationUtility, conn, sql, rowcnt, colCount);
+	}
+	
+	private List<List<?>> performTest(TranslationUtility util, ObjectConnection conn, String sql, int rowcnt, int colCount) throws Exception {
+		Select command = (Select) util.parseCommand(sql);
+		ObjectExecution exec = (ObjectExecution) TRANS_FACTORY.createExecution(command, context, util.createRuntimeMetadata(), conn);
+		try {
+			exec.execute();
+			
+			List<List<?>> rows = new ArrayList<List<?>>();
+			List<?> row = exec.next();
+			while (row != null) {
+				assertEquals("column count doesnt match", colCount, row.size());
+				rows.add(row);
+				row = exec.next();
+			}
+			assertEquals("Did not get expected number of rows", rowcnt, rows.size());
+			return rows;
+		} finally {
+			exec.close();
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.resource.adapter.infinispan;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.infinispan.Cache;
+import org.infinispan.CacheStream;
+import org.teiid.metadata.Column;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.CriteriaPlanner;
+import org.teiid.translator.object.ObjectConnection;
+import org.teiid.translator.object.ObjectPredicate;
+import org.teiid.translator.object.ObjectProjection;
+import org.teiid.translator.object.ObjectVisitor;
+import org.teiid.translator.object.SearchCursor;
+
+/**
+ * CacheStreamSearch evaluates the criteria using a parallel, distributed stream of the cache values, 
+ * instead of a DSL query.  The {@link ObjectPredicate}, and the {@link ObjectProjection} when the 
+ * selected attributes can be projected, are sent to the nodes that own the objects, so only the matching 
+ * objects, or their selected attribute values, are returned.
+ * <p>
+ * It's chosen by the searchability of the columns the criteria is on, see {@link Column#getSearchType()}, 
+ * which is how the metadata marks the attributes that aren't indexed.  When none of the criteria is on 
+ * a searchable column, none of it can be served by the index, see {@link CriteriaPlanner}, so a query 
+ * would have to read every object anyway.
+ */
+final class CacheStreamSearch {
+	
+	private CacheStreamSearch() {
+	}
+	
+	/**
+	 * @param visitor that visited the query
+	 * @return boolean true when the query has criteria, and doesn't need to be sorted or aggregated
+	 */
+	static boolean isStreamSearch(ObjectVisitor visitor) {
+		return visitor.getWhereCriteria() != null && visitor.getOrderBy() == null && !visitor.isAggregateQuery();
+	}
+	
+	@SuppressWarnings("unchecked")
+	static SearchCursor performSearch(ObjectVisitor visitor, ObjectConnection conn) throws TranslatorException {
+		ObjectPredicate predicate = ObjectPredicate.compile(visitor, conn);
+		
+		// resolve the cache now, because the staging target isn't set when the cursor is read
+		Cache<Object, Object> cache = (Cache<Object, Object>) conn.getCache();
+		// the cache can hold other types, whose attributes the predicate can't read, so as 
+		// with the DSL query, only the objects of the cache class type are searched
+		CacheStream<Object> stream = cache.values().parallelStream()
+				.filter(new InstanceFilter(conn.getCacheClassType()));
+		// the criteria of a child table can be only on the child objects, which is evaluated by the execution
+		if (predicate != null) {
+			stream = stream.filter(new MatchesFilter(predicate));
+		}
+		
+		// only the selected attributes are returned, as an Object[] per result
+		String[] projection = visitor.getProjectedAttributeNames();
+		if (projection != null) {
+			stream = stream.map(new Projection(ObjectProjection.compile(projection, conn.getClassRegistry())));
+			visitor.setProjectionPushedDown(true);
+		}
+		
+		if (visitor.getFullScanBatchSize() > 0) {
+			stream = stream.distributedBatchSize(visitor.getFullScanBatchSize());
+		}
+		return new StreamSearchCursor(stream, visitor.getSearchLimit());
+	}
+	
+	/**
+	 * Reads all the objects of the cache class type from the cache.
+	 */
+	@SuppressWarnings("unchecked")
+	static List<Object> getAll(ObjectConnection conn) throws TranslatorException {
+		Cache<Object, Object> cache = (Cache<Object, Object>) conn.getCache();
+		CacheStream<Object> stream = cache.values().parallelStream().filter(new InstanceFilter(conn.getCacheClassType()));
+		
+		StreamSearchCursor cursor = new StreamSearchCursor(stream, 0);
+		List<Object> results = new ArrayList<Object>();
+		while (cursor.hasNext()) {
+			results.add(cursor.next());
+		}
+		return results;
+	}
+	
+	/*
+	 * Carries the TranslatorException thrown by the predicate or projection out of the stream 
+	 */
+	private static final class EvaluationFailure extends RuntimeException {
+		private static final long serialVersionUID = 5044183451733219962L;
+
+		EvaluationFailure(TranslatorException e) {
+			super(e);
+		}
+	}
+	
+	static final class MatchesFilter implements Predicate<Object>, Serializable {
+		private static final long serialVersionUID = -4373484036327183458L;
+		private ObjectPredicate predicate;
+		
+		MatchesFilter(ObjectPredicate predicate) {
+			this.predicate = predicate;
+		}
+		
+		@Override
+		public boolean test(Object o) {
+			try {
+				return predicate.matches(o);
+			} catch (TranslatorException e) {
+				throw new EvaluationFailure(e);
+			}
+		}
+	}
+	
+	static final class Projection implements Function<Object, Object>, Serializable {
+		private static final long serialVersionUID = 2286392547710932751L;
+		private ObjectProjection projection;
+		
+		Projection(ObjectProjection projection) {
+			this.projection = projection;
+		}
+		
+		@Override
+		public Object apply(Object o) {
+			try {
+				return projection.project(o);
+			} catch (TranslatorException e) {
+				throw new EvaluationFailure(e);
+			}
+		}
+	}
+	
+	static final class InstanceFilter implements Predicate<Object>, Serializable {
+		private static final long serialVersionUID = 7521760935683232407L;
+		private Class<?> type;
+		
+		InstanceFilter(Class<?> type) {
+			this.type = type;
+		}
+		
+		@Override
+		public boolean test(Object o) {
+			return type.isInstance(o);
+		}
+	}
+	
+	/**
+	 * Reads the stream results as they're returned by the owners, and closes the stream 
+	 * when it's exhausted, reaches the limit or the cursor is closed.
+	 */
+	static final class StreamSearchCursor implements SearchCursor {
+		private CacheStream<Object> stream;
+		private Iterator<Object> it;
+		private int limit;
+		private int count = 0;
+		
+		StreamSearchCursor(CacheStream<Object> stream, int limit) {
+			this.stream = stream;
+			this.limit = limit;
+		}
+		
+		@Override
+		public boolean hasNext() throws TranslatorException {
+			if (stream == null) {
+				return false;
+			}
+			try {
+				if (it == null) {
+					it = stream.iterator();
+				}
+				if ((limit > 0 && count >= limit) || !it.hasNext()) {
+					close();
+					return false;
+				}
+				return true;
+			} catch (RuntimeException e) {
+				close();
+				throw getTranslatorException(e);
+			}
+		}
+		
+		@Override
+		public Object next() throws TranslatorException {
+			if (!hasNext()) {
+				return null;
+			}
+			try {
+				count++;
+				return it.next();
+			} catch (RuntimeException e) {
+				close();
+				throw getTranslatorException(e);
+			}
+		}
+		
+		@Override
+		public void close() {
+			CacheStream<Object> s = stream;
+			stream = null;
+			it = null;
+			if (s != null) {
+				s.close();
+			}
+		}
+		
+		private static TranslatorException getTranslatorException(RuntimeException e) {
+			for (Throwable t = e; t != null; t = t.getCause()) {
+				if (t instanceof EvaluationFailure) {
+					return (TranslatorException) t.getCause();
+				}
+			}
+			return new TranslatorException(e);
+		}
+	}
+
+}
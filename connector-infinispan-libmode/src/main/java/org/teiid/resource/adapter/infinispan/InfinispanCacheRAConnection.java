@@ -21,7 +21,15 @@
  */
 package org.teiid.resource.adapter.infinispan;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -37,6 +45,7 @@ import org.teiid.translator.TranslatorException;
 import org.teiid.translator.infinispan.libmode.InfinispanCacheConnection;
 import org.teiid.translator.object.ClassRegistry;
 import org.teiid.translator.object.DDLHandler;
+import org.teiid.translator.object.ObjectMerge;
 import org.teiid.translator.object.SearchType;
 import org.teiid.util.Version;
 
@@ -197,15 +206,93 @@ public class InfinispanCacheRAConnection extends BasicConnection
 	public Object get(Object key) throws TranslatorException {
 		return getCache(getTargetCacheName()).get(key);
 	}
+	
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) throws TranslatorException {
+		return getCache(getTargetCacheName()).getAdvancedCache().getAll(new HashSet<Object>(keys));
+	}
 
 	@Override
 	public void add(Object key, Object value) throws TranslatorException {
 		getCache(getTargetCacheName()).put(key, value);
 	}
 
+	@Override
+	public Object addIfAbsent(Object key, Object value) throws TranslatorException {
+		return getCache(getTargetCacheName()).putIfAbsent(key, value);
+	}
+
+	/**
+	 * The merged object is written only if the cache still has the object that was merged, 
+	 * otherwise the merge is retried.  A compute function isn't used, as it would have to be 
+	 * serializable to run on the owner of the key.
+	 */
+	@Override
+	public void upsert(Object key, Object value, ObjectMerge merge) throws TranslatorException {
+		Cache<Object, Object> cache = getCache(getTargetCacheName());
+		while (true) {
+			Object existing = cache.get(key);
+			if (existing == null) {
+				if (cache.putIfAbsent(key, value) == null) {
+					return;
+				}
+			} else if (cache.replace(key, existing, merge.merge(existing))) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public Map<Object, Object> addAllIfAbsent(Map<Object, Object> values) throws TranslatorException {
+		Cache<Object, Object> cache = getCache(getTargetCacheName());
+		Map<Object, Future<Object>> adds = new LinkedHashMap<Object, Future<Object>>();
+		for (Map.Entry<Object, Object> e : values.entrySet()) {
+			adds.put(e.getKey(), cache.putIfAbsentAsync(e.getKey(), e.getValue()));
+		}
+		Map<Object, Object> result = new HashMap<Object, Object>();
+		try {
+			for (Map.Entry<Object, Future<Object>> e : adds.entrySet()) {
+				Object existing = e.getValue().get();
+				if (existing != null) {
+					result.put(e.getKey(), existing);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			throw new TranslatorException(e.getCause());
+		}
+		return result;
+	}
+
 	@Override
 	public Object remove(Object key) throws TranslatorException {
-		return getCache(getTargetCacheName()).removeAsync(key);
+		return getCache(getTargetCacheName()).remove(key);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) throws TranslatorException {
+		return getCache(getTargetCacheName()).remove(key, value);
+	}
+
+	@Override
+	public void removeAll(Collection<?> keys) throws TranslatorException {
+		Cache<Object, Object> cache = getCache(getTargetCacheName());
+		List<Future<?>> removes = new ArrayList<Future<?>>(keys.size());
+		for (Object key : keys) {
+			removes.add(cache.removeAsync(key));
+		}
+		try {
+			for (Future<?> f : removes) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			throw new TranslatorException(e.getCause());
+		}
 	}
 
 	@Override
@@ -213,6 +300,11 @@ public class InfinispanCacheRAConnection extends BasicConnection
 		getCache(getTargetCacheName()).replace(key, value);
 	}
 
+	@Override
+	public boolean replace(Object key, Object oldValue, Object newValue) throws TranslatorException {
+		return getCache(getTargetCacheName()).replace(key, oldValue, newValue);
+	}
+
 	@Override
 	public void clearCache(String cacheName) throws TranslatorException {	
 		getCache(cacheName).clear();
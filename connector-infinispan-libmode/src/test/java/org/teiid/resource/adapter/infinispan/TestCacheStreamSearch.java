@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.resource.adapter.infinispan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.script.ScriptException;
+
+import org.infinispan.Cache;
+import org.infinispan.CacheStream;
+import org.infinispan.manager.DefaultCacheManager;
+import org.junit.Test;
+import org.teiid.resource.adapter.infinispan.CacheStreamSearch.Projection;
+import org.teiid.resource.adapter.infinispan.CacheStreamSearch.StreamSearchCursor;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ClassRegistry;
+import org.teiid.translator.object.ObjectProjection;
+import org.teiid.translator.object.testdata.annotated.Leg;
+import org.teiid.translator.object.testdata.annotated.Trade;
+
+@SuppressWarnings("nls")
+public class TestCacheStreamSearch {
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testLimit() throws Exception {
+		CacheStream<Object> stream = mock(CacheStream.class);
+		when(stream.iterator()).thenReturn(Arrays.<Object>asList("a", "b", "c").iterator());
+		
+		StreamSearchCursor cursor = new StreamSearchCursor(stream, 2);
+		assertEquals("a", cursor.next());
+		assertEquals("b", cursor.next());
+		
+		// the stream is closed once the limit is reached
+		assertFalse(cursor.hasNext());
+		assertNull(cursor.next());
+		verify(stream).close();
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testClose() throws Exception {
+		CacheStream<Object> stream = mock(CacheStream.class);
+		when(stream.iterator()).thenReturn(Arrays.<Object>asList("a", "b", "c").iterator());
+		
+		StreamSearchCursor cursor = new StreamSearchCursor(stream, 0);
+		assertEquals("a", cursor.next());
+		cursor.close();
+		cursor.close();
+		
+		// the stream is closed only once, and nothing more is read
+		verify(stream).close();
+		assertFalse(cursor.hasNext());
+		
+		stream = mock(CacheStream.class);
+		when(stream.iterator()).thenReturn(Arrays.<Object>asList("a").iterator());
+		cursor = new StreamSearchCursor(stream, 0);
+		assertEquals("a", cursor.next());
+		assertNull(cursor.next());
+		verify(stream).close();
+	}
+	
+	@Test public void testEvaluationFailure() throws Exception {
+		DefaultCacheManager container = new DefaultCacheManager();
+		try {
+			Cache<Object, Object> cache = container.getCache();
+			cache.put(1L, new Trade(1, "TradeName 1", new ArrayList<Leg>(), new Date()));
+			
+			CacheStream<Object> stream = cache.values().parallelStream()
+					.map(new Projection(ObjectProjection.compile(new String[] {"noSuchAttribute"}, new ClassRegistry())));
+			StreamSearchCursor cursor = new StreamSearchCursor(stream, 0);
+			try {
+				cursor.next();
+				fail("the attribute can't be read");
+			} catch (TranslatorException e) {
+				// the exception of the projection is thrown, instead of the exception of the stream that carried it
+				assertTrue(e.getCause() instanceof ScriptException);
+			}
+			assertFalse(cursor.hasNext());
+		} finally {
+			container.stop();
+		}
+	}
+
+}
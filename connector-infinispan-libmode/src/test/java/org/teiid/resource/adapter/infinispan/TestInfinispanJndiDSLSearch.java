@@ -21,22 +21,34 @@
  */
 package org.teiid.resource.adapter.infinispan;
 
-import java.util.Map;
-
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import org.infinispan.manager.DefaultCacheManager;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.teiid.cdk.api.TranslationUtility;
 import org.teiid.language.Select;
+import org.teiid.metadata.RuntimeMetadata;
+import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.resource.adapter.infinispan.InfinispanManagedConnectionFactory;
 import org.teiid.resource.adapter.infinispan.InfinispanTestHelper;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.infinispan.libmode.BasicAnnotatedSearchTest;
+import org.teiid.translator.infinispan.libmode.InfinispanCacheConnection;
 import org.teiid.translator.infinispan.libmode.InfinispanCacheExecutionFactory;
 import org.teiid.translator.object.ObjectConnection;
 import org.teiid.translator.object.ObjectExecution;
+import org.teiid.translator.object.testdata.annotated.Leg;
 import org.teiid.translator.object.testdata.annotated.Trade;
 import org.teiid.translator.object.testdata.annotated.TradesAnnotatedCacheSource;
 import org.teiid.translator.object.testdata.trades.VDBUtility;
@@ -46,9 +58,21 @@ public class TestInfinispanJndiDSLSearch extends BasicAnnotatedSearchTest {
 	
 	private static int SELECT_STAR_COL_COUNT = 5;
 	
+	// the key column is an integer, where as the keys in the cache are longs, and the Settled column isn't searchable
+	private static final String TRADE_DDL = 
+			"CREATE FOREIGN TABLE Trade (" +
+			"	TradeId integer NOT NULL OPTIONS (NAMEINSOURCE 'tradeId', SEARCHABLE 'Searchable', NATIVE_TYPE 'long'), " +
+			"	TradeName string OPTIONS (NAMEINSOURCE 'name', SEARCHABLE 'Searchable', NATIVE_TYPE 'java.lang.String'), " +
+			"	Settled boolean OPTIONS (NAMEINSOURCE 'settled', SEARCHABLE 'Unsearchable', NATIVE_TYPE 'boolean'), " +
+			"	CONSTRAINT PK_TRADEID PRIMARY KEY(TradeId)" +
+			") OPTIONS (UPDATABLE TRUE);";
+	
     private static InfinispanManagedConnectionFactory factory = null;
+    private static InfinispanManagedConnectionFactory keyFactory = null;
 	private static ExecutionContext context;
 	private static ObjectConnection CONNECTION;
+	// the key of the trades is the tradeId, so the criteria on the key is read directly by key
+	private static ObjectConnection KEY_CONNECTION;
 	
 	private static InfinispanCacheExecutionFactory TRANS_FACTORY = null;
 	
@@ -79,6 +103,24 @@ public class TestInfinispanJndiDSLSearch extends BasicAnnotatedSearchTest {
 
 		CONNECTION = factory.createConnectionFactory().getConnection();
 		
+		keyFactory = new InfinispanManagedConnectionFactory() {
+			
+			/**
+			 */
+			private static final long serialVersionUID = -3524707218960287316L;
+
+			@Override
+			protected Object performJNDICacheLookup(String jnidName) throws Exception {
+				return container;
+			}
+
+		};
+
+		keyFactory.setCacheJndiName("TradeJNDI");
+		keyFactory.setCacheTypeMap(InfinispanTestHelper.TRADE_CACHE_NAME + ":" + Trade.class.getName() + ";tradeId:" + Long.class.getName());
+		
+		KEY_CONNECTION = keyFactory.createConnectionFactory().getConnection();
+		
 
 		TRANS_FACTORY = new InfinispanCacheExecutionFactory();
 		TRANS_FACTORY.start();
@@ -90,6 +132,7 @@ public class TestInfinispanJndiDSLSearch extends BasicAnnotatedSearchTest {
     public static void closeConnection() throws Exception {
 
 	    CONNECTION.cleanUp();
+	    KEY_CONNECTION.cleanUp();
 	    factory.shutDownCache();
 	}
     
@@ -122,5 +165,110 @@ public class TestInfinispanJndiDSLSearch extends BasicAnnotatedSearchTest {
 	
 		performTest(command, 99, 2);
 	}	
+	
+	@Test public void testQueryAggregates() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select count(*), sum(TradeId), avg(TradeId), min(TradeId), max(TradeId) From Trade_Object.Trade where TradeId <= 10"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(command, 1, 5);
+		List<?> row = (List<?>) rows.get(0);
+		assertEquals(10, ((Number) row.get(0)).intValue());
+		assertEquals(55, ((Number) row.get(1)).longValue());
+		assertEquals(5.5, ((Number) row.get(2)).doubleValue(), 0);
+		assertEquals(1, ((Number) row.get(3)).longValue());
+		assertEquals(10, ((Number) row.get(4)).longValue());
+	}	
+	
+	@Test public void testQueryGroupByHaving() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select Settled, count(*), max(TradeId) From Trade_Object.Trade where TradeId <= 10 group by Settled having max(TradeId) > 9"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(command, 1, 3);
+		List<?> row = (List<?>) rows.get(0);
+		assertEquals(Boolean.TRUE, row.get(0));
+		assertEquals(5, ((Number) row.get(1)).intValue());
+		assertEquals(10, ((Number) row.get(2)).longValue());
+	}	
+	
+	@Test public void testQueryAggregateResidualCriteria() throws Exception {						
+		// IS NULL isn't evaluated by the query, so the trades are counted by the execution
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select count(*) From Trade_Object.Trade where TradeId <= 10 and TradeDate is not null"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(command, 1, 1);
+		assertEquals(10, ((Number) ((List<?>) rows.get(0)).get(0)).intValue());
+	}
+	
+	@Test public void testKeySearch() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeId, TradeName From Trade_Object.Trade where TradeId = 3"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(KEY_CONNECTION, command, VDBUtility.RUNTIME_METADATA, 1, 2);
+		assertEquals("TradeName 3", ((List<?>) rows.get(0)).get(1));
+		
+		// the trades are returned in the order of the keys, and the keys that aren't found are skipped
+		command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeId, TradeName From Trade_Object.Trade where TradeId in (5, 500, 2)"); //$NON-NLS-1$
+		
+		rows = performTest(KEY_CONNECTION, command, VDBUtility.RUNTIME_METADATA, 2, 2);
+		assertEquals(5L, ((List<?>) rows.get(0)).get(0));
+		assertEquals("TradeName 2", ((List<?>) rows.get(1)).get(1));
+	}	
+	
+	@Test public void testKeySearchKeyTypeConversion() throws Exception {						
+		TranslationUtility util = new TranslationUtility(RealMetadataFactory.fromDDL(TRADE_DDL, "TradeVDB", "Trade"));
+		Select command = (Select)util.parseCommand("select TradeId, TradeName From Trade where TradeId in (7, 8)"); //$NON-NLS-1$
+		
+		// the integer values are converted to the long keys
+		List<Object> rows = performTest(KEY_CONNECTION, command, util.createRuntimeMetadata(), 2, 2);
+		assertEquals(7, ((List<?>) rows.get(0)).get(0));
+		assertEquals("TradeName 8", ((List<?>) rows.get(1)).get(1));
+	}	
+	
+	@Test public void testStreamSearch() throws Exception {						
+		TranslationUtility util = new TranslationUtility(RealMetadataFactory.fromDDL(TRADE_DDL, "TradeVDB", "Trade"));
+		InfinispanCacheConnection conn = spy((InfinispanCacheConnection) CONNECTION);
+		
+		// the criteria is only on a column that isn't searchable, so the cache values are streamed instead of queried
+		Select command = (Select)util.parseCommand("select TradeId, TradeName From Trade where Settled = true"); //$NON-NLS-1$
+		performTest(conn, command, util.createRuntimeMetadata(), 100, 2);
+		verify(conn, never()).getQueryFactory();
+		
+		// the index narrows the trades for the searchable column, and the rest of the criteria is evaluated against them
+		command = (Select)util.parseCommand("select TradeId, TradeName From Trade where Settled = true and TradeName like 'TradeName 1%'"); //$NON-NLS-1$
+		performTest(conn, command, util.createRuntimeMetadata(), 55, 2);
+		verify(conn).getQueryFactory();
+	}	
+	
+	@SuppressWarnings("unchecked")
+	@Test public void testKeySearchOtherType() throws Exception {						
+		Map<Object, Object> cache = (Map<Object, Object>) KEY_CONNECTION.getCache();
+		cache.put(201L, new Leg(1, "LegName 1", 1.0, new Date()));
+		try {
+			// like the query, only the objects of the cache class type are returned
+			Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeId, TradeName From Trade_Object.Trade where TradeId in (1, 201)"); //$NON-NLS-1$
+			List<Object> rows = performTest(KEY_CONNECTION, command, VDBUtility.RUNTIME_METADATA, 1, 2);
+			assertEquals("TradeName 1", ((List<?>) rows.get(0)).get(1));
+			
+			command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeId, TradeName From Trade_Object.Trade where TradeId = 201"); //$NON-NLS-1$
+			performTest(KEY_CONNECTION, command, VDBUtility.RUNTIME_METADATA, 0, 2);
+		} finally {
+			cache.remove(201L);
+		}
+	}	
+	
+	private List<Object> performTest(ObjectConnection conn, Select command, RuntimeMetadata metadata, int rowcnt, int colCount) throws Exception {
+		ObjectExecution exec = (ObjectExecution) TRANS_FACTORY.createExecution(command, context, metadata, conn);
+		try {
+			exec.execute();
+			
+			List<Object> rows = new ArrayList<Object>();
+			List<?> row = exec.next();
+			while (row != null) {
+				assertEquals("column count doesnt match", colCount, row.size());
+				rows.add(row);
+				row = exec.next();
+			}
+			assertEquals("Did not get expected number of rows", rowcnt, rows.size());
+			return rows;
+		} finally {
+			exec.close();
+		}
+	}
 
 }
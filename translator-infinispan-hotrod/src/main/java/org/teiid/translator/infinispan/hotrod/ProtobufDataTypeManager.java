@@ -23,6 +23,7 @@ package org.teiid.translator.infinispan.hotrod;
 
 
 import org.teiid.translator.object.ObjectDataTypeManager;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
 
 /**
  * @author vhalbert
@@ -38,4 +39,26 @@ public class ProtobufDataTypeManager extends ObjectDataTypeManager {
 		return super.getDataTypeName(type);
 	}
 	
+	/**
+	 * An enum attribute is exposed as a string column, see {@link #getDataTypeName(Class)}, 
+	 * so its values are read as the names of the constants.
+	 */
+	@Override
+	public ValueConverter getFromObjectTypeConverter(Class<?> sourceType, Class<?> teiidType) {
+		if (sourceType != null && sourceType.isEnum() && teiidType == String.class) {
+			return ENUM_NAME;
+		}
+		return super.getFromObjectTypeConverter(sourceType, teiidType);
+	}
+	
+	private static final ValueConverter ENUM_NAME = new ValueConverter() {
+		@Override
+		public Object convert(Object value) {
+			if (value instanceof Enum) {
+				return ((Enum<?>) value).name();
+			}
+			return value == null ? null : value.toString();
+		}
+	};
+	
 }
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -245,16 +246,28 @@ public class ProtobufMetadataProcessor implements MetadataProcessor<ObjectConnec
 
     }
     private void createInnerTable(MetadataFactory mf, Descriptor desc, String parentColumnRef, Table rootTable, Method pkMethod, InfinispanHotRodConnection conn) throws TranslatorException  {
+    	// get the root class
+    	createInnerTable(mf, desc, parentColumnRef, parentColumnRef, rootTable, conn.getCacheClassType(), rootTable, pkMethod, conn);
+    }
+    
+    /*
+     * The parent of an inner table is either the root table, or another inner table when the repeated messages 
+     * are nested.  The foreign key refers to the parent table, and the NIS of the columns is the path of 
+     * the repeated descriptors from the root message, in order to perform the query.
+     */
+    private void createInnerTable(MetadataFactory mf, Descriptor desc, String parentColumnRef, String nisPrefix, Table parentTable, Class<?> pc, Table rootTable, Method pkMethod, InfinispanHotRodConnection conn) throws TranslatorException  {
     	Class<?> c = getRegisteredClass(desc.getName(), conn);
  
-    	// get the root class
-		Class<?> pc = conn.getCacheClassType();
-		
 		String fd_Name = parentColumnRef;
+		
+		// the objects of a nested inner table can only be read
+		boolean updatable = rootTable.supportsUpdate() && parentTable == rootTable;
 
-		Table t = addTable(mf, c, rootTable.supportsUpdate(), false);
+		Table t = addTable(mf, c, updatable, false);
 		
 		Map<String, Method> mapMethods = conn.getClassRegistry().getReadClassMethods(c.getName());
+		
+		Map<String, FieldDescriptor> nestedMap = new LinkedHashMap<String, FieldDescriptor>();
 
 		List<FieldDescriptor> fields = desc.getFields();
 		for (FieldDescriptor f:fields) {
@@ -263,9 +276,14 @@ public class ProtobufMetadataProcessor implements MetadataProcessor<ObjectConnec
 			
 			Method m = findMethod(c.getName(), f.getName(), mapMethods, conn);
 			Class<?> type = m.getReturnType();
+			
+			if (f.isRepeated() && f.getMessageType() != null && (! type.equals(byte[].class))) {
+				nestedMap.put(f.getName(), f);
+				continue;
+			}
 
 			// need to use the repeated descriptor, fd, as the prefix to the NIS in order to perform query
-			addSubColumn(mf, type,  getProtobufNativeType(f), f, st, (fd_Name == null ? f.getContainingMessage().getName() : fd_Name), t, true, rootTable.supportsUpdate(), (f.isRequired() ? NullType.No_Nulls  : NullType.Nullable), conn );	
+			addSubColumn(mf, type,  getProtobufNativeType(f), f, st, (fd_Name == null ? f.getContainingMessage().getName() : nisPrefix), t, true, updatable, (f.isRequired() ? NullType.No_Nulls  : NullType.Nullable), conn );	
 		}
 		
 		if (pkMethod != null) {
@@ -287,12 +305,21 @@ public class ProtobufMetadataProcessor implements MetadataProcessor<ObjectConnec
 			keyColumns.add(methodName);
 			List<String> referencedKeyColumns = new ArrayList<String>();
 			referencedKeyColumns.add(methodName);
-			String fkName = "FK_" + rootTable.getName().toUpperCase();
+			String fkName = "FK_" + parentTable.getName().toUpperCase();
 			
     		addRootColumn(mf, pkMethod.getReturnType(), pkMethod.getReturnType(), methodName, methodName, SearchType.Searchable, t.getName(), t, false, true, NullType.No_Nulls, conn);
-			ForeignKey fk = mf.addForiegnKey(fkName, keyColumns, referencedKeyColumns, rootTable.getName(), t);
+    		
+    		// a nested inner table refers to the key of the root object in its parent table 
+    		if (parentTable.getPrimaryKey() == null) {
+    			mf.addPrimaryKey("PK_" + methodName.toUpperCase(), referencedKeyColumns, parentTable); //$NON-NLS-1$
+    		}
+			ForeignKey fk = mf.addForiegnKey(fkName, keyColumns, referencedKeyColumns, parentTable.getName(), t);
 			
 			fk.setNameInSource(mName);
+			
+			for (FieldDescriptor f : nestedMap.values()) {
+				createInnerTable(mf, f.getMessageType(), f.getName(), nisPrefix + "." + f.getName(), t, c, rootTable, pkMethod, conn); //$NON-NLS-1$
+			}
 
 		}		
 
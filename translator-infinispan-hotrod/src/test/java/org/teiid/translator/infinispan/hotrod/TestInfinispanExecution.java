@@ -25,6 +25,7 @@ package org.teiid.translator.infinispan.hotrod;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +81,13 @@ public class TestInfinispanExecution {
         
         performTest(2, 2, command);
 
+    }
+	
+	@Test public void testExecutionNotIn() throws Exception {
+        Select command = (Select)translationUtility.parseCommand("select name, id From Person as T where id not in (1, 5)"); //$NON-NLS-1$
+        
+        performTest(8, 2, command);
+
     }
 	
 	/**
@@ -118,6 +126,14 @@ public class TestInfinispanExecution {
 
 	}	
 
+	@Test public void test1toManyChildEnumCriteria() throws Exception {
+		Select command = (Select)translationUtility.parseCommand("select b.type, b.number From PhoneNumber as b where b.type = 'HOME'"); //$NON-NLS-1$
+
+		// the enum is compared by the name of the constant, the same as it's selected
+		performTest(7, 2, command, Arrays.<Object>asList("HOME"));
+
+	}
+
 	@Test public void test1to1Child() throws Exception {
 		Select command = (Select)translationUtility.parseCommand("select City From Address as T"); //$NON-NLS-1$
 
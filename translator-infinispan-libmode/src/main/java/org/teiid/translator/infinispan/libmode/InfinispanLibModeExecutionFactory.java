@@ -62,8 +62,13 @@ public class InfinispanLibModeExecutionFactory extends ObjectExecutionFactory {
 	private boolean supportsDSLSearching = true;
 	
 	private boolean supportsCompareCriteriaOrdered = false;
-	private boolean supportNotCriteria = false;
-	private boolean supportsIsNullCriteria = false;
+	private boolean supportNotCriteria = true;
+	private boolean supportsIsNullCriteria = true;
+	private int fetchSize = 0;
+	private int prefetchDepth = 1;
+	private int fullScanBatchSize = 0;
+	private boolean supportsProjection = false;
+	private boolean supportsAggregates = false;
 	
 
 	public InfinispanLibModeExecutionFactory() {
@@ -150,11 +155,120 @@ public class InfinispanLibModeExecutionFactory extends ObjectExecutionFactory {
 		return isFullQuerySupported();
 	}
 	
+	/**
+	 * Returns the number of objects read from the cache per DSL query page.
+	 * @return int fetch size
+	 */
+	@TranslatorProperty(display="Fetch Size", description="The number of objects read from the cache per query page, zero or less reads all the results using a single query [default=0]",advanced=true)
+	@Override
+	public int getFetchSize() {
+		return fetchSize;
+	}
+	
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	
+	/**
+	 * Returns the number of DSL query pages read ahead of the page being consumed.
+	 * @return int prefetch depth
+	 */
+	@TranslatorProperty(display="Prefetch Depth", description="The number of query pages read ahead, on a background thread, when the Fetch Size is set, zero or less disables reading ahead [default=1]",advanced=true)
+	@Override
+	public int getPrefetchDepth() {
+		return prefetchDepth;
+	}
+	
+	public void setPrefetchDepth(int prefetchDepth) {
+		this.prefetchDepth = prefetchDepth;
+	}
+	
+	/**
+	 * Returns the number of objects returned per batch by the distributed cache stream.
+	 * @return int full scan batch size
+	 */
+	@TranslatorProperty(display="Full Scan Batch Size", description="The number of objects returned per batch by each node, when the criteria on an attribute that isn't indexed is evaluated by a distributed cache stream, zero or less uses the cache's default batch size [default=0]",advanced=true)
+	@Override
+	public int getFullScanBatchSize() {
+		return fullScanBatchSize;
+	}
+	
+	public void setFullScanBatchSize(int fullScanBatchSize) {
+		this.fullScanBatchSize = fullScanBatchSize;
+	}
+	
+	/**
+	 * Indicates if the DSL query will select only the attributes being queried  
+	 * @return boolean
+	 */
+	@TranslatorProperty(display="SupportsProjection", description="If true, the DSL query selects only the queried attributes when no child table attributes are queried, and only the key of the objects a DELETE removes.  When the cache is indexed, the attributes must be stored in the index [default=false]",advanced=true)
+	@Override
+	public boolean supportsProjection() {
+		return supportsProjection;
+	}
+	
+	public void setSupportsProjection(boolean supports) {
+		this.supportsProjection = supports;
+	}
+	
+	/**
+	 * Indicates if the aggregate functions, GROUP BY and HAVING are performed by the DSL query
+	 * @return boolean
+	 */
+	@TranslatorProperty(display="SupportsAggregates", description="If true, COUNT, SUM, AVG, MIN, MAX, GROUP BY and HAVING are performed by the DSL query.  Only the attributes of the root class can be aggregated, and requires Infinispan 8 or later [default=false]",advanced=true)
+	public boolean supportsAggregates() {
+		return supportsAggregates;
+	}
+	
+	public void setSupportsAggregates(boolean supports) {
+		this.supportsAggregates = supports;
+	}
+	
+	@Override
+	public boolean supportsAggregatesCount() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsAggregatesCountStar() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsAggregatesSum() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsAggregatesAvg() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsAggregatesMin() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsAggregatesMax() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsGroupBy() {
+		return supportsAggregates;
+	}
+	
+	@Override
+	public boolean supportsHaving() {
+		return supportsAggregates;
+	}
+	
 	/**
 	 * see https://issues.jboss.org/browse/TEIID-3573
 	 * Discusses issue with trying to support IS NULL and IS NOT NULL;
 	 */
-	@TranslatorProperty(display="SupportsIsNullCriteria", description="If true, translator can support IsNull criteria ",advanced=true)
+	@TranslatorProperty(display="SupportsIsNullCriteria", description="If true, translator can support IsNull criteria, which is evaluated against the objects the query returns [default=true]",advanced=true)
 	@Override
     public boolean supportsIsNullCriteria() {
 		return supportsIsNullCriteria;
@@ -177,10 +291,10 @@ public class InfinispanLibModeExecutionFactory extends ObjectExecutionFactory {
 	}	
 	
 	/**
-	 *  see https://issues.jboss.org/browse/TEIID-3573
-	 * Discusses issue with trying to support NOT;
+	 * NOT isn't evaluated by the DSL query, see TEIID-3573, but against 
+	 * the objects the query returns, see {@link org.teiid.translator.object.CriteriaPlanner}
 	 */
-	@TranslatorProperty(display="NotCriteria", description="If true, translator can support the NOT operators' ",advanced=true)	
+	@TranslatorProperty(display="NotCriteria", description="If true, translator can support the NOT operators, which are evaluated against the objects the query returns [default=true]",advanced=true)	
 	@Override
 	public boolean supportsNotCriteria() {
 		return this.supportNotCriteria;
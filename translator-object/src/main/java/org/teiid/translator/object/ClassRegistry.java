@@ -22,11 +22,16 @@
 package org.teiid.translator.object;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.script.ScriptException;
 
@@ -50,11 +55,20 @@ public class ClassRegistry {
 	private ObjectScriptEngine readEngine=null;
 	private ObjectScriptEngine writeEngine=null;
 	
-	private Map<String, Class<?>> registeredClasses = new HashMap<String, Class<?>>(); // fullClassName, Class
-	private Map<String, Class<?>> tableNameClassMap = new HashMap<String, Class<?>>(); // simpleClassName(i.e., tableName), Class 
+	private Map<String, Class<?>> registeredClasses = new ConcurrentHashMap<String, Class<?>>(); // fullClassName, Class
+	private Map<String, Class<?>> tableNameClassMap = new ConcurrentHashMap<String, Class<?>>(); // simpleClassName(i.e., tableName), Class 
 
 	private ObjectDataTypeManager dataTypeManager = null;
 	
+	// the most row extractors kept for a class, before they're all discarded
+	private static final int MAX_ROW_EXTRACTORS = 100;
+	
+	/*
+	 * The row extractors are stored with each class, by the selected attribute names and types, 
+	 * so the executions reading rows concurrently don't lock.  
+	 */
+	private volatile ClassValue<ConcurrentMap<List<Object>, RowExtractor>> rowExtractors = createRowExtractors();
+	
 	public ClassRegistry() {
 		dataTypeManager = new ObjectDataTypeManager();
 		init();
@@ -71,16 +85,17 @@ public class ClassRegistry {
 		writeEngine = new ObjectScriptEngine(false);
 	}
 	
-	public synchronized void registerClass(Class<?> clz) {
+	public void registerClass(Class<?> clz) {
 		 
 		registeredClasses.put(clz.getName(), clz);	
 		tableNameClassMap.put(clz.getSimpleName(), clz);
 		 	
 	}
 	
-	public synchronized void unregisterClass(Class<?> clz)  {
+	public void unregisterClass(Class<?> clz)  {
 		registeredClasses.remove(clz.getName());	
 		tableNameClassMap.remove(clz.getSimpleName());	
+		rowExtractors.remove(clz);
 	}
 
 	public ObjectDataTypeManager getObjectDataTypeManager() {
@@ -112,7 +127,7 @@ public class ClassRegistry {
 
 	}	
 	
-	private synchronized Map<String, Method> getClassMethods(ObjectScriptEngine engine, String className) throws TranslatorException {	
+	private Map<String, Method> getClassMethods(ObjectScriptEngine engine, String className) throws TranslatorException {	
 		
 		Class<?> clz = registeredClasses.get(className);
 		if (clz == null) {
@@ -185,17 +200,108 @@ public class ClassRegistry {
     } 
     
 	public static Method findMethod(Map<String, Method> mapMethods, String methodName, String className) throws TranslatorException {
-		
+
 		return ObjectUtil.findMethod(mapMethods, methodName);
 
 	}
+
+	/**
+	 * Returns the declared type of the attribute, so the values of the attribute are converted the same way
+	 * whether they're selected, compared or indexed, see {@link ObjectDataTypeManager#getFromObjectTypeConverter(Class, Class)}.
+	 * For a path into the child objects, the type of the elements of a collection or array is read from its declaration.
+	 * @param clazz of the objects in the cache
+	 * @param attributePath is the name in source of the column, where <code>this</code> is the object itself
+	 * @return Class, or <code>null</code> when the type can't be determined from the getters of the classes
+	 * @throws TranslatorException
+	 */
+	public Class<?> getAttributeType(Class<?> clazz, String attributePath) throws TranslatorException {
+		if (clazz == null || attributePath == null) {
+			return null;
+		}
+		if (attributePath.equalsIgnoreCase("this")) { //$NON-NLS-1$
+			return clazz;
+		}
+		Class<?> type = clazz;
+		for (String name : StringUtil.split(attributePath, ".")) { //$NON-NLS-1$
+			if (type == null) {
+				return null;
+			}
+			Method m = null;
+			try {
+				m = ObjectUtil.findMethod(readEngine.getMethodMap(type), name);
+			} catch (ScriptException e) {
+				throw new TranslatorException(e);
+			}
+			if (m == null) {
+				return null;
+			}
+			type = m.getReturnType();
+			if (type.isArray()) {
+				type = type.getComponentType();
+			} else if (Collection.class.isAssignableFrom(type)) {
+				type = getElementType(m.getGenericReturnType());
+			}
+		}
+		return type;
+	}
+
+	private static Class<?> getElementType(Type collectionType) {
+		if (collectionType instanceof ParameterizedType) {
+			Type[] args = ((ParameterizedType) collectionType).getActualTypeArguments();
+			if (args.length == 1 && args[0] instanceof Class) {
+				return (Class<?>) args[0];
+			}
+		}
+		return null;
+	}
     
+	/**
+	 * Returns the extractor that reads the selected columns from an object of the class.
+	 * @param clazz of the objects
+	 * @param attributeNames are the names in source of the selected columns
+	 * @param types are the Teiid types of the selected columns
+	 * @return RowExtractor, or <code>null</code> when the columns can't all be read by the getters of the class
+	 * @throws TranslatorException
+	 */
+	public RowExtractor getRowExtractor(Class<?> clazz, String[] attributeNames, Class<?>[] types) throws TranslatorException {
+		List<Object> key = new ArrayList<Object>(attributeNames.length * 2);
+		key.addAll(Arrays.asList(attributeNames));
+		key.addAll(Arrays.asList(types));
+		
+		ConcurrentMap<List<Object>, RowExtractor> extractors = rowExtractors.get(clazz);
+		RowExtractor extractor = extractors.get(key);
+		if (extractor != null) {
+			return extractor;
+		}
+		extractor = RowExtractor.create(this, clazz, attributeNames, types);
+		if (extractor != null) {
+			if (extractors.size() >= MAX_ROW_EXTRACTORS) {
+				extractors.clear();
+			}
+			RowExtractor existing = extractors.putIfAbsent(key, extractor);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return extractor;
+	}
+	
+	private static ClassValue<ConcurrentMap<List<Object>, RowExtractor>> createRowExtractors() {
+		return new ClassValue<ConcurrentMap<List<Object>, RowExtractor>>() {
+			@Override
+			protected ConcurrentMap<List<Object>, RowExtractor> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<List<Object>, RowExtractor>();
+			}
+		};
+	}
+	
     public void cleanUp() {
 		readEngine = null;
 		writeEngine = null;
 		
     	registeredClasses.clear();
     	tableNameClassMap.clear();
+    	rowExtractors = createRowExtractors();
 
     }
 
@@ -0,0 +1,242 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teiid.language.AndOr;
+import org.teiid.language.ColumnReference;
+import org.teiid.language.Comparison;
+import org.teiid.language.Condition;
+import org.teiid.language.Expression;
+import org.teiid.language.In;
+import org.teiid.language.LanguageUtil;
+import org.teiid.language.Like;
+import org.teiid.language.Literal;
+import org.teiid.language.visitor.CollectorVisitor;
+import org.teiid.metadata.Column;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.metadata.JavaBeanMetadataProcessor;
+import org.teiid.translator.object.util.ObjectUtil;
+
+/**
+ * CriteriaPlanner splits the WHERE criteria of a query into the criteria that's served by the index 
+ * of the cache, which is sent to the cache with the query, and the residual criteria, which is evaluated 
+ * by the translator using an {@link ObjectPredicate} against the objects that the query returns.  
+ * A query with criteria that the cache can't evaluate is therefore still narrowed by the index, 
+ * instead of every object being read.
+ * <p>
+ * The criteria is split into its conjuncts.  A disjunction is only served by the index when every 
+ * part of it can be.  The index serves a comparison, IN or LIKE of an attribute to literal values, 
+ * when the searchability of the column allows it, see {@link Column#getSearchType()}, and the attribute 
+ * isn't marked as not indexed, see {@link JavaBeanMetadataProcessor#NO_INDEX}.  
+ * IS NULL, NOT and NOT IN are residual, because of their null semantics in the index, see TEIID-3573.
+ * <p>
+ * For a child table, the criteria on the attributes of the child objects is evaluated by the 
+ * execution against each child row, see {@link #getChildCriteria(ObjectVisitor)}, so it's never residual.  
+ * When it's served by the index, it's also sent with the query, to narrow the objects to those with a 
+ * matching child.
+ * <p>
+ * The aggregates of a query can only be calculated by the cache when all its criteria is served by 
+ * the index and it isn't on a child table, see {@link #isAggregatedByQuery()}.  Otherwise, the objects are returned and aggregated by the 
+ * execution.
+ */
+public final class CriteriaPlanner {
+	
+	private Condition indexedCriteria;
+	private Condition residualCriteria;
+	private boolean aggregatedByQuery;
+	
+	private CriteriaPlanner(Condition indexedCriteria, Condition residualCriteria, boolean aggregatedByQuery) {
+		this.indexedCriteria = indexedCriteria;
+		this.residualCriteria = residualCriteria;
+		this.aggregatedByQuery = aggregatedByQuery;
+	}
+	
+	/**
+	 * @param visitor that visited the query
+	 * @param conn the connection the query is performed by
+	 * @return CriteriaPlanner with the split criteria of the query
+	 * @throws TranslatorException
+	 */
+	public static CriteriaPlanner plan(ObjectVisitor visitor, ObjectConnection conn) throws TranslatorException {
+		Condition where = visitor.getWhereCriteria();
+		// the query returns the root objects, so the rows of a child table can't be aggregated by it
+		boolean childTable = visitor.getRootTableName() != null;
+		
+		if (where == null) {
+			return new CriteriaPlanner(null, null, !childTable);
+		}
+		
+		List<Condition> indexed = new ArrayList<Condition>();
+		List<Condition> residual = new ArrayList<Condition>();
+		for (Condition c : LanguageUtil.separateCriteriaByAnd(where)) {
+			if (isIndexed(c)) {
+				indexed.add(c);
+			} else if (!isChildCriteria(c, visitor)) {
+				residual.add(c);
+			}
+		}
+		// the aggregates are only correct when the query evaluates all the criteria
+		boolean aggregatedByQuery = !childTable && residual.isEmpty() && getChildCriteria(visitor) == null;
+		return new CriteriaPlanner(combine(indexed), combine(residual), aggregatedByQuery);
+	}
+	
+	/**
+	 * Returns the criteria of a child table query that refers to the attributes of the child objects, 
+	 * which the execution evaluates against each child row.
+	 * @param visitor that visited the query
+	 * @return Condition, or <code>null</code> when there's no criteria on the child objects
+	 */
+	public static Condition getChildCriteria(ObjectVisitor visitor) {
+		return getCriteria(visitor, true);
+	}
+	
+	/**
+	 * Returns the criteria of the query that's evaluated against the objects in the cache, which is 
+	 * all the criteria, except for the {@link #getChildCriteria(ObjectVisitor) child criteria}.
+	 * @param visitor that visited the query
+	 * @return Condition, or <code>null</code> when there's no criteria on the objects in the cache
+	 */
+	public static Condition getObjectCriteria(ObjectVisitor visitor) {
+		return getCriteria(visitor, false);
+	}
+	
+	private static Condition getCriteria(ObjectVisitor visitor, boolean child) {
+		Condition where = visitor.getWhereCriteria();
+		if (where == null || visitor.getRootTableName() == null) {
+			return (child ? null : where);
+		}
+		List<Condition> conditions = new ArrayList<Condition>();
+		for (Condition c : LanguageUtil.separateCriteriaByAnd(where)) {
+			if (isChildCriteria(c, visitor) == child) {
+				conditions.add(c);
+			}
+		}
+		return combine(conditions);
+	}
+	
+	static boolean isChildCriteria(Condition c, ObjectVisitor visitor) {
+		if (visitor.getRootTableName() == null) {
+			return false;
+		}
+		for (ColumnReference cr : CollectorVisitor.collectElements(c)) {
+			if (cr.getMetadataObject() != null && isChildAttribute(cr.getMetadataObject(), visitor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return boolean true when the column of a child table is read from the child objects, which is 
+	 * when it isn't the foreign key, and its name in source is the path to the attribute of the child
+	 */
+	static boolean isChildAttribute(Column col, ObjectVisitor visitor) {
+		return visitor.getRootTableName() != null && !visitor.getForeignKey().getColumns().contains(col) 
+				&& ObjectUtil.getRecordName(col).indexOf('.') > 0;
+	}
+	
+	/**
+	 * @return Condition to be evaluated by the query, or <code>null</code> when the query isn't narrowed
+	 */
+	public Condition getIndexedCriteria() {
+		return indexedCriteria;
+	}
+	
+	/**
+	 * @return Condition to be evaluated against the objects the query returns, or <code>null</code> when the query evaluates all the criteria 
+	 */
+	public Condition getResidualCriteria() {
+		return residualCriteria;
+	}
+	
+	/**
+	 * @return true when the aggregates of the query can be calculated by the query, because it evaluates all 
+	 * the criteria and isn't on a child table.  Otherwise, the query has to return the objects, which are aggregated by the execution.
+	 */
+	public boolean isAggregatedByQuery() {
+		return aggregatedByQuery;
+	}
+	
+	private static Condition combine(List<Condition> conditions) {
+		if (conditions.isEmpty()) {
+			return null;
+		}
+		return LanguageUtil.combineCriteria(conditions);
+	}
+	
+	static boolean isIndexed(Condition c) {
+		if (c instanceof AndOr) {
+			AndOr andOr = (AndOr) c;
+			return isIndexed(andOr.getLeftCondition()) && isIndexed(andOr.getRightCondition());
+		} else if (c instanceof Comparison) {
+			Comparison comparison = (Comparison) c;
+			Expression left = comparison.getLeftExpression();
+			Expression right = comparison.getRightExpression();
+			return (isIndexed(left, false) && isLiteralValue(right)) || (isLiteralValue(left) && isIndexed(right, false));
+		} else if (c instanceof In) {
+			In in = (In) c;
+			if (in.isNegated() || !isIndexed(in.getLeftExpression(), false)) {
+				return false;
+			}
+			for (Expression e : in.getRightExpressions()) {
+				if (!isLiteralValue(e)) {
+					return false;
+				}
+			}
+			return true;
+		} else if (c instanceof Like) {
+			// the query doesn't support an escape character
+			Like like = (Like) c;
+			return like.getMode() == Like.MatchMode.LIKE && like.getEscapeCharacter() == null 
+					&& isIndexed(like.getLeftExpression(), true) && isLiteralValue(like.getRightExpression());
+		}
+		return false;
+	}
+	
+	/*
+	 * The searchability of a column says whether its attribute is indexed, such as by the annotations 
+	 * or the protobuf definition the metadata was read from
+	 */
+	private static boolean isIndexed(Expression e, boolean like) {
+		if (!(e instanceof ColumnReference)) {
+			return false;
+		}
+		Column c = ((ColumnReference) e).getMetadataObject();
+		if (c == null || ObjectUtil.getRecordName(c).equalsIgnoreCase("this")) { //$NON-NLS-1$
+			return false;
+		}
+		Column.SearchType st = c.getSearchType();
+		if (st == Column.SearchType.Unsearchable || (st == Column.SearchType.Like_Only && !like) 
+				|| (st == Column.SearchType.All_Except_Like && like)) {
+			return false;
+		}
+		return !JavaBeanMetadataProcessor.NO_INDEX.equalsIgnoreCase(c.getProperty(JavaBeanMetadataProcessor.INDEX_PROPERTY, false));
+	}
+	
+	private static boolean isLiteralValue(Expression e) {
+		return e instanceof Literal && ((Literal) e).getValue() != null;
+	}
+
+}
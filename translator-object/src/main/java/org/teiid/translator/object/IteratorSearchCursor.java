@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.teiid.translator.TranslatorException;
+
+/**
+ * IteratorSearchCursor exposes an {@link Iterator} over search results as a {@link SearchCursor}.  
+ * Subclasses can override {@link #nextIterator()} to supply the results in chunks, and the cursor
+ * will only ask for the next chunk once the current one has been consumed.
+ */
+public class IteratorSearchCursor implements SearchCursor {
+	
+	private Iterator<?> it;
+	private boolean done = false;
+
+	public IteratorSearchCursor(Iterator<?> iterator) {
+		this.it = iterator;
+	}
+	
+	protected IteratorSearchCursor() {
+	}
+	
+	public static SearchCursor emptyCursor() {
+		return new IteratorSearchCursor(Collections.emptyList().iterator());
+	}
+	
+	/**
+	 * Called when the current iterator has been exhausted.
+	 * @return Iterator the next iterator to be read, or <code>null</code> when there are no more results
+	 * @throws TranslatorException
+	 */
+	protected Iterator<?> nextIterator() throws TranslatorException {
+		return null;
+	}
+
+	@Override
+	public boolean hasNext() throws TranslatorException {
+		while (!done) {
+			if (it != null && it.hasNext()) {
+				return true;
+			}
+			it = nextIterator();
+			if (it == null) {
+				done = true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Object next() throws TranslatorException {
+		if (!hasNext()) {
+			return null;
+		}
+		return it.next();
+	}
+
+	@Override
+	public void close() {
+		done = true;
+		it = null;
+	}
+
+}
@@ -0,0 +1,323 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.language.AggregateFunction;
+import org.teiid.language.ColumnReference;
+import org.teiid.language.Command;
+import org.teiid.language.Condition;
+import org.teiid.language.DerivedColumn;
+import org.teiid.language.Expression;
+import org.teiid.language.Literal;
+import org.teiid.metadata.Column;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ObjectPredicate.RowValue;
+import org.teiid.translator.object.ObjectPredicate.Value;
+
+/**
+ * ObjectAggregation calculates the aggregate functions, GROUP BY and HAVING of a query, when the search 
+ * returns the objects instead of the aggregate values, see {@link CriteriaPlanner#isAggregatedByQuery()}.
+ * <p>
+ * The columns that are grouped or aggregated are read from each object, or each child row of a child table, 
+ * and added to its group, so only the groups and their running aggregate values are kept.  
+ */
+final class ObjectAggregation {
+	
+	private static final Object COUNT_STAR = Boolean.TRUE;
+	
+	private ObjectVisitor visitor;
+	private ClassRegistry classRegistry;
+	private String source;
+	private Command query;
+	
+	// the columns read for each object or child row
+	private List<DerivedColumn> columns = new ArrayList<DerivedColumn>();
+	private Map<Column, Integer> columnIndexes = new IdentityHashMap<Column, Integer>();
+	
+	// a group row is the grouping values followed by the aggregate values
+	private List<Expression> groupExpressions = new ArrayList<Expression>();
+	private int[] groupColumns;
+	private List<AggregateFunction> functions = new ArrayList<AggregateFunction>();
+	private List<Integer> functionColumns = new ArrayList<Integer>();
+	private int[] selectIndexes;
+	private ObjectPredicate having;
+	
+	private Map<List<Object>, Aggregate[]> groups = new LinkedHashMap<List<Object>, Aggregate[]>();
+	
+	/**
+	 * @param visitor that visited the aggregate query
+	 * @param classRegistry used to evaluate the HAVING criteria
+	 * @param connection the query is performed by
+	 * @param query is the aggregate query
+	 * @throws TranslatorException if the aggregates can't be calculated from the columns 
+	 */
+	ObjectAggregation(ObjectVisitor visitor, ClassRegistry classRegistry, ObjectConnection connection, Command query) throws TranslatorException {
+		this.visitor = visitor;
+		this.classRegistry = classRegistry;
+		this.source = connection.getClass().getName();
+		this.query = query;
+		
+		if (visitor.getGroupBy() != null) {
+			groupExpressions.addAll(visitor.getGroupBy().getElements());
+		}
+		groupColumns = new int[groupExpressions.size()];
+		for (int i = 0; i < groupColumns.length; i++) {
+			groupColumns[i] = getColumnIndex(groupExpressions.get(i));
+		}
+		
+		List<DerivedColumn> cols = visitor.getProjectedColumns();
+		selectIndexes = new int[cols.size()];
+		for (int i = 0; i < selectIndexes.length; i++) {
+			selectIndexes[i] = getGroupRowIndex(cols.get(i).getExpression());
+		}
+		
+		Condition havingCriteria = visitor.getHavingCriteria();
+		if (havingCriteria != null) {
+			having = ObjectPredicate.compile(havingCriteria, new HavingCompiler());
+		}
+	}
+	
+	/**
+	 * @return List of the columns to be read for each object or child row, in the order {@link #addRow(List)} expects them
+	 */
+	List<DerivedColumn> getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * Adds the row of the column values to its group.
+	 * @param row of the {@link #getColumns() column} values
+	 * @throws TranslatorException
+	 */
+	void addRow(List<?> row) throws TranslatorException {
+		List<Object> key = Collections.emptyList();
+		if (groupColumns.length > 0) {
+			key = new ArrayList<Object>(groupColumns.length);
+			for (int col : groupColumns) {
+				key.add(row.get(col));
+			}
+		}
+		Aggregate[] aggregates = groups.get(key);
+		if (aggregates == null) {
+			aggregates = createAggregates();
+			groups.put(key, aggregates);
+		}
+		for (int i = 0; i < aggregates.length; i++) {
+			int col = functionColumns.get(i);
+			aggregates[i].add(col < 0 ? COUNT_STAR : row.get(col));
+		}
+	}
+	
+	/**
+	 * @return List of the result rows, one per group that matches the HAVING criteria, with the selected values
+	 * @throws TranslatorException
+	 */
+	List<List<?>> getRows() throws TranslatorException {
+		// without a GROUP BY, the aggregate values are returned even when there are no rows
+		if (groups.isEmpty() && groupColumns.length == 0) {
+			groups.put(Collections.emptyList(), createAggregates());
+		}
+		
+		List<List<?>> rows = new ArrayList<List<?>>(groups.size());
+		for (Map.Entry<List<Object>, Aggregate[]> group : groups.entrySet()) {
+			Object[] groupRow = new Object[groupColumns.length + functions.size()];
+			int i = 0;
+			for (Object value : group.getKey()) {
+				groupRow[i++] = value;
+			}
+			for (Aggregate aggregate : group.getValue()) {
+				groupRow[i++] = aggregate.getValue();
+			}
+			if (having != null && !having.matches(groupRow)) {
+				continue;
+			}
+			Object[] r = new Object[selectIndexes.length];
+			for (int j = 0; j < r.length; j++) {
+				r[j] = groupRow[selectIndexes[j]];
+			}
+			rows.add(Arrays.asList(r));
+		}
+		groups.clear();
+		return rows;
+	}
+	
+	private Aggregate[] createAggregates() {
+		Aggregate[] aggregates = new Aggregate[functions.size()];
+		for (int i = 0; i < aggregates.length; i++) {
+			aggregates[i] = new Aggregate(functions.get(i), source);
+		}
+		return aggregates;
+	}
+	
+	/*
+	 * Returns the index of the value in the group row, where a selected or HAVING column has to be grouped 
+	 */
+	private int getGroupRowIndex(Expression e) throws TranslatorException {
+		if (e instanceof AggregateFunction) {
+			AggregateFunction af = (AggregateFunction) e;
+			Expression arg = af.getExpression();
+			functionColumns.add(arg == null ? -1 : getColumnIndex(arg));
+			functions.add(af);
+			return groupColumns.length + functions.size() - 1;
+		}
+		if (e instanceof ColumnReference && ((ColumnReference) e).getMetadataObject() != null) {
+			Column col = ((ColumnReference) e).getMetadataObject();
+			for (int i = 0; i < groupColumns.length; i++) {
+				if (((ColumnReference) groupExpressions.get(i)).getMetadataObject() == col) {
+					return i;
+				}
+			}
+		}
+		throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21020, new Object[] {source, query}));
+	}
+	
+	private int getColumnIndex(Expression e) throws TranslatorException {
+		if (!(e instanceof ColumnReference) || ((ColumnReference) e).getMetadataObject() == null) {
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21020, new Object[] {source, query}));
+		}
+		Column col = ((ColumnReference) e).getMetadataObject();
+		Integer index = columnIndexes.get(col);
+		if (index == null) {
+			index = columns.size();
+			columnIndexes.put(col, index);
+			columns.add(new DerivedColumn(null, (ColumnReference) e));
+		}
+		return index;
+	}
+	
+	/*
+	 * The HAVING criteria is evaluated against the group row 
+	 */
+	private class HavingCompiler extends ObjectPredicate.Compiler {
+		
+		HavingCompiler() {
+			// the columns are read from the group rows, so no attributes of the cache class type are read
+			super(visitor, classRegistry, null);
+		}
+		
+		@Override
+		Value compile(Expression e) throws TranslatorException {
+			if (e instanceof Literal) {
+				return super.compile(e);
+			}
+			return new RowValue(getGroupRowIndex(e));
+		}
+	}
+	
+	/**
+	 * The running value of an aggregate function for a group.  Like SQL, the null values are ignored, 
+	 * and other than COUNT, the value of an empty group is <code>null</code>.
+	 */
+	static final class Aggregate {
+		private AggregateFunction function;
+		private String name;
+		private String source;
+		private HashSet<Object> distinct;
+		private long count = 0;
+		private Object value;
+		
+		Aggregate(AggregateFunction function, String source) {
+			this.function = function;
+			this.name = function.getName();
+			this.source = source;
+			if (function.isDistinct()) {
+				distinct = new HashSet<Object>();
+			}
+		}
+		
+		void add(Object v) throws TranslatorException {
+			if (v == null || (distinct != null && !distinct.add(v))) {
+				return;
+			}
+			count++;
+			if (AggregateFunction.COUNT.equalsIgnoreCase(name)) {
+				return;
+			}
+			if (AggregateFunction.MIN.equalsIgnoreCase(name) || AggregateFunction.MAX.equalsIgnoreCase(name)) {
+				if (value == null) {
+					value = v;
+				} else {
+					int c = ObjectPredicate.compare(v, value, function.toString());
+					if (AggregateFunction.MIN.equalsIgnoreCase(name) ? c < 0 : c > 0) {
+						value = v;
+					}
+				}
+				return;
+			}
+			if (!(v instanceof Number) || !(AggregateFunction.SUM.equalsIgnoreCase(name) || AggregateFunction.AVG.equalsIgnoreCase(name))) {
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21020, new Object[] {source, function}));
+			}
+			// the floating point values are summed as a double, and the others exactly
+			if (v instanceof Double || v instanceof Float || value instanceof Double) {
+				value = (value == null ? 0d : ((Number) value).doubleValue()) + ((Number) v).doubleValue();
+			} else {
+				value = (value == null ? BigDecimal.ZERO : (BigDecimal) value).add(toBigDecimal((Number) v));
+			}
+		}
+		
+		Object getValue() throws TranslatorException {
+			Object result = value;
+			if (AggregateFunction.COUNT.equalsIgnoreCase(name)) {
+				result = count;
+			} else if (result == null) {
+				return null;
+			} else if (AggregateFunction.AVG.equalsIgnoreCase(name)) {
+				if (result instanceof Double) {
+					result = (Double) result / count;
+				} else {
+					result = ((BigDecimal) result).divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+				}
+			}
+			// the value is returned as the type of the function, which depends upon the type that's aggregated
+			try {
+				return DataTypeManager.transformValue(result, function.getType());
+			} catch (TransformationException e) {
+				throw new TranslatorException(e);
+			}
+		}
+		
+		private static BigDecimal toBigDecimal(Number n) {
+			if (n instanceof BigDecimal) {
+				return (BigDecimal) n;
+			}
+			if (n instanceof BigInteger) {
+				return new BigDecimal((BigInteger) n);
+			}
+			return BigDecimal.valueOf(n.longValue());
+		}
+	}
+
+}
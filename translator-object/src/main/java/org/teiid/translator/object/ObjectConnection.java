@@ -22,6 +22,7 @@
 package org.teiid.translator.object;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.teiid.translator.TranslatorException;
 import org.teiid.util.Version;
@@ -104,6 +105,36 @@ public interface ObjectConnection {
 	 */
 	public void add(Object key, Object value) throws TranslatorException;
 	
+	/**
+	 * Call to add an object to the cache, only when there isn't an object with the same key, 
+	 * as a single atomic operation.
+	 * @param key
+	 * @param value
+	 * @return Object already in the cache, or null when the object was added
+	 * @throws TranslatorException
+	 */
+	public Object addIfAbsent(Object key, Object value) throws TranslatorException;
+	
+	/**
+	 * Call to add an object to the cache, or when there is an object with the same key, 
+	 * replace it with the object returned by the merge, as a single conditional write.
+	 * @param key
+	 * @param value to add when there isn't an object with the key
+	 * @param merge applied to the existing object
+	 * @throws TranslatorException
+	 */
+	public void upsert(Object key, Object value, ObjectMerge merge) throws TranslatorException;
+	
+	/**
+	 * Call to add all the objects to the cache, each only when there isn't an object with the same key, 
+	 * see {@link #addIfAbsent(Object, Object)}.  The adds are sent without waiting for each other when 
+	 * the cache supports it, and this call returns when they have all completed.
+	 * @param values the objects to add, by key
+	 * @return Map of the objects already in the cache, by key, which is empty when all the objects were added
+	 * @throws TranslatorException
+	 */
+	public Map<Object, Object> addAllIfAbsent(Map<Object, Object> values) throws TranslatorException;
+	
 	
 	/**
 	 * Call to remove an object from the cache
@@ -113,6 +144,25 @@ public interface ObjectConnection {
 	 */
 	public Object remove(Object key) throws TranslatorException;
 	
+	/**
+	 * Call to remove the object from the cache, only when the key is still mapped to the object 
+	 * that was read, as a single conditional operation.
+	 * @param key
+	 * @param value the object that was read from the cache
+	 * @return true when the object was removed
+	 * @throws TranslatorException
+	 */
+	public boolean remove(Object key, Object value) throws TranslatorException;
+	
+	/**
+	 * Call to remove the objects from the cache for all the specified keys.  The removes are
+	 * sent without waiting for each other when the cache supports it, and this call returns
+	 * when they have all completed.
+	 * @param keys
+	 * @throws TranslatorException
+	 */
+	public void removeAll(Collection<?> keys) throws TranslatorException;
+	
 	/**
 	 * Call to update an object in the cache
 	 * @param key
@@ -120,6 +170,17 @@ public interface ObjectConnection {
 	 * @throws TranslatorException
 	 */
 	public void update(Object key, Object value)  throws TranslatorException;
+	
+	/**
+	 * Call to replace the object in the cache, only when the key is still mapped to the object 
+	 * that was read, as a single conditional operation.
+	 * @param key
+	 * @param oldValue the object that was read from the cache, which must not have been changed
+	 * @param newValue the object to replace it with
+	 * @return true when the object was replaced
+	 * @throws TranslatorException
+	 */
+	public boolean replace(Object key, Object oldValue, Object newValue)  throws TranslatorException;
 
 	
 	/** 
@@ -146,6 +207,15 @@ public interface ObjectConnection {
 	 */
 	public Object get(Object key) throws TranslatorException;
 	
+	/**
+	 * Call to obtain the objects from the cache for all the specified keys, using a
+	 * single bulk request when the cache supports it. 
+	 * @param keys to use to get the objects from the cache
+	 * @return Map of the objects found, by key
+	 * @throws TranslatorException 
+	 */
+	public Map<Object, Object> getAll(Collection<?> keys) throws TranslatorException;
+	
 	/**
 	 * Call to obtain all the objects from the cache
 	 * @return List of all the objects in the cache
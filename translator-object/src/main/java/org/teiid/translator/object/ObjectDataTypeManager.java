@@ -21,8 +21,14 @@
  */
 package org.teiid.translator.object;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.Transform;
 import org.teiid.core.types.TransformationException;
 import org.teiid.translator.TypeFacility;
 
@@ -35,6 +41,40 @@ import org.teiid.translator.TypeFacility;
  *
  */
 public class ObjectDataTypeManager {
+	
+	/**
+	 * Converts the values of one column, where the lookups for the types of the column are done 
+	 * when the converter is created, instead of for every value.
+	 */
+	public interface ValueConverter {
+		Object convert(Object value) throws TransformationException;
+	}
+	
+	private static final ValueConverter NO_CONVERSION = new ValueConverter() {
+		@Override
+		public Object convert(Object value) {
+			return value;
+		}
+	};
+	
+	// the enum constants by their upper case name
+	private static final ClassValue<Map<String, Object>> ENUM_CONSTANTS = new ClassValue<Map<String, Object>>() {
+		@Override
+		protected Map<String, Object> computeValue(Class<?> type) {
+			Object[] con = type.getEnumConstants();
+			if (con == null) {
+				return Collections.emptyMap();
+			}
+			Map<String, Object> constants = new HashMap<String, Object>();
+			for (Object c:con) {
+				String name = c.toString().toUpperCase(Locale.ENGLISH);
+				if (!constants.containsKey(name)) {
+					constants.put(name, c);
+				}
+			}
+			return constants;
+		}
+	};
 
 	public String getDataTypeName(Class<?> type)  {
 		return TypeFacility.getDataTypeName(TypeFacility.getRuntimeType(type));
@@ -54,11 +94,9 @@ public class ObjectDataTypeManager {
 	public Object convertToObjectType(Object value, Class<?> objectType) throws TransformationException  {
 
 		if (objectType.isEnum()) {
-			Object[] con = objectType.getEnumConstants();
-			for (Object c:con) {
-				if (c.toString().equalsIgnoreCase(value.toString())) {
-					return c;
-				}
+			Object c = ENUM_CONSTANTS.get(objectType).get(value.toString().toUpperCase(Locale.ENGLISH));
+			if (c != null) {
+				return c;
 			}
 		}
 		
@@ -120,4 +158,93 @@ public class ObjectDataTypeManager {
 //		}
 		return value;
 	}
+	
+	/**
+	 * Returns the converter of the values of a column to its Teiid type, which is to be 
+	 * created once for the column and then used for every row, see {@link #convertFromObjectType(Object, Class)}.
+	 * A subclass can override this to plan a conversion that is specific to the data source.  
+	 * @param sourceType is the declared type of the attribute, see {@link ClassRegistry#getAttributeType(Class, String)}, or <code>null</code> when it's not known
+	 * @param teiidType is the Teiid runtime class of the column
+	 * @return ValueConverter, which is safe to be shared by threads
+	 */
+	public ValueConverter getFromObjectTypeConverter(Class<?> sourceType, Class<?> teiidType) {
+		if (teiidType == null || teiidType == Object.class) {
+			return NO_CONVERSION;
+		}
+		return new FromObjectTypeConverter(sourceType, teiidType);
+	}
+	
+	/**
+	 * Resolves the conversion once for the declared type of the attribute.  A value of another class, 
+	 * or any value when the declared type isn't known, is converted by a conversion resolved for that value.
+	 * The converter isn't changed once it's created, so it can be shared by the executions of a cached plan.
+	 */
+	private static final class FromObjectTypeConverter implements ValueConverter {
+		private final Class<?> teiidType;
+		// null when the declared type isn't known
+		private final ConversionPlan plan;
+		
+		FromObjectTypeConverter(Class<?> sourceType, Class<?> teiidType) {
+			this.teiidType = teiidType;
+			if (sourceType != null && sourceType != Object.class) {
+				this.plan = new ConversionPlan(box(sourceType), teiidType);
+			} else {
+				this.plan = null;
+			}
+		}
+		
+		@Override
+		public Object convert(Object value) throws TransformationException {
+			if (value == null) {
+				return null;
+			}
+			ConversionPlan p = this.plan;
+			if (p == null || p.sourceType != value.getClass()) {
+				p = new ConversionPlan(value.getClass(), teiidType);
+			}
+			if (p.transform == null) {
+				return value;
+			}
+			return p.transform.transform(value, teiidType);
+		}
+	}
+	
+	private static final class ConversionPlan {
+		final Class<?> sourceType;
+		// null when the value is returned as is
+		final Transform transform;
+		
+		ConversionPlan(Class<?> sourceType, Class<?> teiidType) {
+			this.sourceType = sourceType;
+			if (sourceType.isArray() || teiidType.isAssignableFrom(sourceType) || !DataTypeManager.isTransformable(sourceType, teiidType)) {
+				this.transform = null;
+			} else {
+				this.transform = DataTypeManager.getTransform(sourceType, teiidType);
+			}
+		}
+	}
+	
+	private static Class<?> box(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		} else if (type == char.class) {
+			return Character.class;
+		}
+		return Void.class;
+	}
 }
@@ -22,199 +22,126 @@
 
 package org.teiid.translator.object;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
-import javax.script.CompiledScript;
-import javax.script.ScriptContext;
 import javax.script.ScriptException;
-import javax.script.SimpleScriptContext;
 
 import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.StringUtil;
 import org.teiid.language.ColumnReference;
 import org.teiid.language.Command;
 import org.teiid.language.DerivedColumn;
+import org.teiid.language.Expression;
 import org.teiid.language.Select;
+import org.teiid.language.SortSpecification;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.ForeignKey;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.ObjectScriptEngine.ObjectCompiledScript;
 import org.teiid.translator.object.util.ObjectUtil;
 
 /**
  * Execution of the SELECT Command
  */
 public class ObjectExecution extends ObjectBaseExecution implements ResultSetExecution {
-	public enum  OBJECT_TYPE {
-		COLLECTION,
-		ARRAY,
-		MAP,
-		VALUE
-	}
-
-	class Node {
-
-		protected Object value = null;
-		protected int columnLoc = 0;
-		protected OBJECT_TYPE ot;
-		protected String name = null;
-		protected String dataType = null;
-		protected CompiledScript compiledScript;
-		
-		Node() {
-		}
-		Node(String nodeName, int columnLocation) {
-			name = nodeName;
-			columnLoc = columnLocation;
+	/**
+	 * A selected attribute of the root object.  The nodes are shared by the executions of the 
+	 * same query through the plan cache, so they're immutable.
+	 */
+	static class Node {
+		private final String name;
+		private final int columnLoc;
+		private final String dataType;
+		private final ObjectCompiledScript compiledScript;
+		
+		Node(String nodeName, int columnLocation, String dataType, ObjectCompiledScript compiledScript) {
+			this.name = nodeName;
+			this.columnLoc = columnLocation;
+			this.dataType = dataType;
+			this.compiledScript = compiledScript;
 		}
 		
 		String getName() {
 			return name;
 		}
+		
 		int getColumnLocation() {
 			return columnLoc;
 		}
 		
-		Object getValue() {
-			return value;
-		}		
-		
-		void setValue(Object v) {
-			value = v;
-			if (Collection.class.isAssignableFrom(v.getClass())) {
-				ot = OBJECT_TYPE.COLLECTION;	
-			} else if (Map.class.isAssignableFrom(v.getClass())) {
-				ot = OBJECT_TYPE.MAP;
-			} else if (v.getClass().isArray()) {
-				ot = OBJECT_TYPE.ARRAY;
-			} else {
-				ot = OBJECT_TYPE.VALUE;
-			}
-		}
-		
-		boolean isCollection() {
-			return (ot == OBJECT_TYPE.COLLECTION);
-		}
-		
-		boolean isMap() {
-			return (ot == OBJECT_TYPE.MAP);
-		}
-
-		boolean isArray() {
-			return (ot == OBJECT_TYPE.ARRAY);
+		String getDataType() {
+			return dataType;
 		}
 		
-		boolean isObjectValue() { 
-			return (ot == OBJECT_TYPE.VALUE);
-		}
-		/**
-		 * Called to reset pointer to what it was before 
-		 * being processed.  This is so the this node can be reused
-		 * for each object in the object result set for this column.
-		 */
-		void reset() {
-			value = null;
-			ot=null;
+		ObjectCompiledScript getCompiledScript() {
+			return compiledScript;
 		}
-	
 	}
-	class DepthNode extends Node {
-		// values that change during processing
-		protected int nodePosition=0;
-		
-		protected List<String> nodes = null;
-		protected String depthNodes = null;
-		protected int nodeSize = 0;
-		
-		DepthNode() {			
-		}
-		
-		DepthNode(String name, int colLocation) {
-			this();
-			nodes = StringUtil.split(name, ".");
-			this.name = nodes.get(0);
-			nodeSize = nodes.size();
-			depthNodes = name.substring(0, name.lastIndexOf("."));
-			columnLoc = colLocation;
 	
-		}
-		
-		
-		String getNodeName(int position) {
-			return nodes.get(position);
-		}
-		
-		String getCurrentNodeName() {
-			return nodes.get(nodePosition);
+	/**
+	 * A selected attribute of the child objects, where the name is the path from the root object.
+	 * The compiled script reads the attribute from the child object.
+	 */
+	static class DepthNode extends Node {
+		private final int nodeSize;
+		
+		DepthNode(String name, int colLocation, String dataType, ObjectCompiledScript compiledScript) {
+			super(name.substring(0, name.indexOf('.')), colLocation, dataType, compiledScript);
+			nodeSize = StringUtil.split(name, ".").size(); //$NON-NLS-1$
 		}
 		
 		int getNumberOfNodes() {
 			return nodeSize;
 		}
-		
-		String getDepthNodes() {
-			return depthNodes;
-		}
-		
-		String getDepthMethodName() {
-			return nodes.get(nodeSize -1);
-		}
-		
-		boolean hasNext() {
-			return (nodePosition < (nodeSize -1) ?true:false);
-		}
-		
-		boolean isLast() {
-			return ( nodePosition == (nodeSize - 1) ? true:false);
-		}
-		
-		void incrementPosition() {
-			++nodePosition;
-		}
-		
-		/**
-		 * Called to reset pointer to what it was before 
-		 * being processed.  This is so the this node can be reused
-		 * for each object in the object result set for this column.
-		 */
-		@Override
-		void reset() {
-			super.reset();
-			nodePosition=0;
-		}
-
-
-		@Override
-		protected Object clone() {
-			DepthNode dn = new DepthNode();
-			dn.nodePosition = this.nodePosition;
-			dn.nodes = this.nodes;
-			dn.depthNodes = this.depthNodes;
-			dn.nodeSize = this.nodeSize;
-			dn.columnLoc = this.columnLoc;
-			return dn;
-		}
 	}
 	
 	protected Command query;
 	private Object[] colObjects;
-	private ScriptContext sc = new SimpleScriptContext();
 	private ObjectScriptEngine scriptEngine;
-	private Iterator<Object> objResultsItr = null;
-	private Iterator<Object> cacheResultsIt = null;
+	private SearchCursor searchCursor = null;
+	// for a child table, the iterators of the children at each nesting level within the current root object
+	private Iterator<?>[] children = null;
+	private int childLevel = -1;
+	private Object childParent = null;
+	private int rowCount = 0;
 	private ObjectVisitor visitor;
 	private int depth = 0; // the bottom depth to go, not all depths may retrieve data/
 	private int colSize = 0;
+	// true when the search returns an Object[] of the selected attribute values, instead of the objects
+	private boolean projected = false;
+	private Class<?>[] projectedTypes;
+	// the conversions of the column values to the projected types, planned once for the execution
+	private ValueConverter[] converters;
+	// set when the execution sorts the rows, because the search doesn't return the objects in order
+	private int[] sortColumns;
+	private boolean[] sortDescending;
+	private Iterator<List<?>> sortedRows = null;
+	// set when every column is read from the root object, so the row can be filled by a RowExtractor
+	private String[] extractorAttributeNames;
+	private Class<?> extractorClass;
+	private RowExtractor rowExtractor;
+	// reads the child objects at each nesting level, starting from the root object
+	private ObjectCompiledScript[] childReaders;
+	// the criteria on the attributes of the child objects, evaluated against each child row
+	private ObjectPredicate childPredicate;
+	// set when the execution aggregates the rows, because the search returned the objects instead of the aggregate values
+	private ObjectAggregation aggregation;
+	private Iterator<List<?>> aggregateRows = null;
 
 	public ObjectExecution(Command command, 
 			ObjectExecutionFactory factory, ObjectConnection connection, ExecutionContext executionContext) throws TranslatorException {
@@ -223,6 +150,10 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 		this.scriptEngine = connection.getClassRegistry().getReadScriptEngine();
 		
 		visitor = this.createVisitor();
+		visitor.setFetchSize(factory.getFetchSize());
+		visitor.setPrefetchDepth(factory.getPrefetchDepth());
+		visitor.setPrefetchExecutor(factory.getPrefetchExecutor());
+		visitor.setFullScanBatchSize(factory.getFullScanBatchSize());
 		
 		visitor.visitNode(query);
 		
@@ -234,11 +165,88 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 		List<DerivedColumn> cols = visitor.getProjectedColumns();
 
 		colSize = cols.size();
+		
+		// the column accessors and conversions are only planned for the first execution of the command shape
+		String planKey = getPlanKey(cols, factory);
+		ObjectExecutionPlan plan = factory.getExecutionPlan(planKey, getClassRegistry());
+		if (plan == null) {
+			plan = createPlan(cols, factory);
+			factory.putExecutionPlan(planKey, plan);
+		} else {
+			colObjects = plan.colObjects;
+			projectedTypes = plan.projectedTypes;
+			converters = plan.converters;
+			depth = plan.depth;
+			extractorAttributeNames = plan.extractorAttributeNames;
+			sortColumns = plan.sortColumns;
+			sortDescending = plan.sortDescending;
+		}
+		childReaders = plan.childReaders;
+		
+		if (visitor.isAggregateQuery()) {
+			return;
+		}
+		
+		if (factory.supportsProjection()) {
+			visitor.setProjectedAttributeNames(plan.projectedAttributeNames);
+		}
+	}
+	
+	/*
+	 * The plan only depends upon the selected columns, the foreign key of a child table and the ORDER BY,
+	 * so executions of the same command with other criteria values reuse it.
+	 */
+	private String getPlanKey(List<DerivedColumn> cols, ObjectExecutionFactory factory) throws TranslatorException {
+		StringBuilder key = new StringBuilder(this.connection.getCacheClassType().getName());
+		for (DerivedColumn dc : cols) {
+			key.append('|');
+			if (dc.getAlias() != null) {
+				key.append(dc.getAlias()).append('=');
+			}
+			Expression e = dc.getExpression();
+			if (e instanceof ColumnReference && ((ColumnReference) e).getMetadataObject() != null) {
+				Column c = ((ColumnReference) e).getMetadataObject();
+				key.append(c.getFullName()).append(':').append(ObjectUtil.getRecordName(c)).append(':').append(c.getRuntimeType());
+			} else {
+				key.append(e).append(':').append(e.getType().getName());
+			}
+		}
+		if (visitor.getForeignKey() != null) {
+			key.append("|fk=").append(visitor.getForeignKeyPath()); //$NON-NLS-1$
+		}
+		if (visitor.isAggregateQuery()) {
+			key.append("|aggregate"); //$NON-NLS-1$
+		}
+		if (visitor.getOrderBy() != null && !factory.supportsOrderByInSearch()) {
+			key.append("|order=").append(visitor.getOrderBy()); //$NON-NLS-1$
+		}
+		return key.toString();
+	}
+	
+	private ObjectExecutionPlan createPlan(List<DerivedColumn> cols, ObjectExecutionFactory factory) throws TranslatorException {
 
 		ForeignKey fk = visitor.getForeignKey();
 		
 		colObjects = new Object[colSize];
 		
+		projectedTypes = new Class<?>[colSize];
+		converters = new ValueConverter[colSize];
+		for (int i = 0; i < colSize; i++) {
+			Expression e = cols.get(i).getExpression();
+			projectedTypes[i] = e.getType();
+			// the values are converted from the declared type of the attribute, the same as when they're compared 
+			Class<?> sourceType = null;
+			if (e instanceof ColumnReference && ((ColumnReference) e).getMetadataObject() != null) {
+				sourceType = ObjectPredicate.getAttributeType(((ColumnReference) e).getMetadataObject(), visitor, getClassRegistry(), connection.getCacheClassType());
+			}
+			converters[i] = getClassRegistry().getObjectDataTypeManager().getFromObjectTypeConverter(sourceType, projectedTypes[i]);
+		}
+		
+		// the aggregate values are calculated by the search, so there are no object attributes to read
+		if (visitor.isAggregateQuery() && aggregation == null) {
+			return new ObjectExecutionPlan(getClassRegistry(), colObjects, projectedTypes, converters, depth, null, null, null, null, null);
+		}
+		
 		int col = 0;
 		for (DerivedColumn dc : cols) {
 			ColumnReference cr = (ColumnReference) dc.getExpression();
@@ -255,34 +263,118 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 					if (fk == null) {
 						throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21003, new Object[] { ((Select)query).getFrom()}));
 					}
-					DepthNode dn = new DepthNode(nis, col);
+					ObjectCompiledScript cs = null;
+					try {
+						cs = getCompiledNode(StringUtil.getLastToken(nis, ".")); //$NON-NLS-1$
+					} catch (ScriptException e) {
+					}
+					
+					DepthNode dn = new DepthNode(nis, col, runtimeTypeName, cs);
 					colObjects[col] = dn;
-					dn.dataType = runtimeTypeName;
 					 						
 					int n =dn.getNumberOfNodes();
 
 					if (n > depth) depth = n;
 					
-					try {
-						dn.compiledScript = getCompiledNode(dn.getDepthMethodName());
-					} catch (ScriptException e) {
-					}
-					
 			} else {
 				
-				Node n = new Node(nis, col);
-				n.dataType = runtimeTypeName;
-				
 				try {
-					n.compiledScript = getCompiledNode(nis);
-					
-					colObjects[col] = n;
+					colObjects[col] = new Node(nis, col, runtimeTypeName, getCompiledNode(nis));
 				} catch (ScriptException e) {
 					throw new TranslatorException(e);
 				}
 			}
 			col++;
 		}
+		
+		// a child table has a row per child object, even when none of the child attributes are selected
+		if (fk != null && depth == 0) {
+			depth = StringUtil.split(visitor.getForeignKeyPath(), ".").size() + 1; //$NON-NLS-1$
+		}
+		
+		ObjectCompiledScript[] readers = null;
+		if (depth > 0) {
+			List<String> path = StringUtil.split(visitor.getForeignKeyPath(), "."); //$NON-NLS-1$
+			readers = new ObjectCompiledScript[path.size()];
+			try {
+				for (int i = 0; i < readers.length; i++) {
+					readers[i] = getCompiledNode(path.get(i));
+				}
+			} catch (ScriptException e) {
+				throw new TranslatorException(e);
+			}
+		}
+		
+		if (depth == 0) {
+			extractorAttributeNames = new String[colSize];
+			for (int i = 0; i < colSize; i++) {
+				extractorAttributeNames[i] = (colObjects[i] == null ? "this" : ((Node) colObjects[i]).getName()); //$NON-NLS-1$
+			}
+		}
+		
+		if (visitor.getOrderBy() != null && !factory.supportsOrderByInSearch() && aggregation == null) {
+			setSortColumns(cols);
+		}
+		
+		return new ObjectExecutionPlan(getClassRegistry(), colObjects, projectedTypes, converters, depth, 
+				getProjectedAttributeNames(), extractorAttributeNames, sortColumns, sortDescending, readers);
+	}
+	
+	/*
+	 * The rows are sorted by the values of the selected columns, so each 
+	 * ORDER BY item has to refer to a column in the select.
+	 */
+	private void setSortColumns(List<DerivedColumn> cols) throws TranslatorException {
+		List<SortSpecification> specs = visitor.getOrderBy().getSortSpecifications();
+		sortColumns = new int[specs.size()];
+		sortDescending = new boolean[specs.size()];
+		for (int i = 0; i < sortColumns.length; i++) {
+			SortSpecification ss = specs.get(i);
+			sortColumns[i] = getSelectIndex(ss.getExpression(), cols);
+			if (sortColumns[i] < 0) {
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21024, new Object[] {ss, query}));
+			}
+			sortDescending[i] = (ss.getOrdering() == SortSpecification.Ordering.DESC);
+		}
+	}
+	
+	private static int getSelectIndex(Expression e, List<DerivedColumn> cols) {
+		if (!(e instanceof ColumnReference)) {
+			return -1;
+		}
+		ColumnReference cr = (ColumnReference) e;
+		for (int i = 0; i < cols.size(); i++) {
+			DerivedColumn dc = cols.get(i);
+			if (cr.getMetadataObject() == null) {
+				// refers to the alias of the select column
+				if (dc.getAlias() != null && dc.getAlias().equalsIgnoreCase(cr.getName())) {
+					return i;
+				}
+			} else if (dc.getExpression() instanceof ColumnReference 
+					&& ((ColumnReference) dc.getExpression()).getMetadataObject() == cr.getMetadataObject()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/*
+	 * The attribute values can only be selected by the search when every column is 
+	 * an attribute of the root object, because the child objects and the root object itself 
+	 * are only available by reading the root object. 
+	 */
+	private String[] getProjectedAttributeNames() {
+		if (depth > 0 || colSize == 0) {
+			return null;
+		}
+		String[] names = new String[colSize];
+		for (int i = 0; i < colSize; i++) {
+			if (colObjects[i] == null || colObjects[i] instanceof DepthNode) {
+				return null;
+			}
+			names[i] = ((Node) colObjects[i]).getName();
+		}
+		return names;
 	}
 
 	@Override
@@ -298,15 +390,29 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 			}
 		    
 			// column NIS for a column will be used to query the cache
-		    List<Object> objResults = connection.getSearchType().performSearch(visitor, executionContext); 
+			// the objects are read from the cursor as rows are requested
+			this.searchCursor = connection.getSearchType().performSearch(visitor, executionContext); 
 		    
-			if (objResults == null) {
-				objResults = Collections.emptyList();
+			if (this.searchCursor == null) {
+				this.searchCursor = IteratorSearchCursor.emptyCursor();
 			}
-			LogManager.logDetail(LogConstants.CTX_CONNECTOR,
-					"ObjectExecution: number of returned objects is :", objResults.size() ); //$NON-NLS-1$
+			this.projected = visitor.isProjectionPushedDown();
 			
-			this.objResultsItr = objResults.iterator();
+			// the search returns the objects, instead of the aggregate values, when it can't evaluate all 
+			// the criteria, see CriteriaPlanner, so the rows of the grouped and aggregated columns are aggregated
+			if (!this.projected && visitor.isAggregateQuery()) {
+				this.aggregation = new ObjectAggregation(visitor, getClassRegistry(), connection, query);
+				List<DerivedColumn> columns = aggregation.getColumns();
+				colSize = columns.size();
+				childReaders = createPlan(columns, getFactory()).childReaders;
+				if (visitor.getOrderBy() != null) {
+					setSortColumns(visitor.getProjectedColumns());
+				}
+			}
+			
+			if (depth > 0) {
+				this.childPredicate = ObjectPredicate.compile(CriteriaPlanner.getChildCriteria(visitor), visitor, connection);
+			}
 		} catch (TranslatorException te) {
 			throw te;
 		} catch (RuntimeException re) {
@@ -320,86 +426,259 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public List<?> next() throws TranslatorException,
 			DataNotAvailableException {
-		if  (cacheResultsIt != null && cacheResultsIt.hasNext()) {
-		
-			// return the next row in the cache 
-			return (List<Object>) cacheResultsIt.next();
-		} 
-		
-		String fkeyColNIS = null;
-		cacheResultsIt = null;
-		if (depth > 0 ) {
-
-			fkeyColNIS = visitor.getForeignKey().getNameInSource();
+		try {
+			if (aggregation != null) {
+				return nextAggregateRow();
+			}
+			if (sortColumns != null) {
+				return nextSortedRow();
+			}
+			// a child table search isn't limited, so the child rows stop at the limit
+			int limit = visitor.getLimit();
+			if (limit > 0 && rowCount >= limit) {
+				return null;
+			}
+			List<?> row = nextRow();
+			if (row != null) {
+				rowCount++;
+			}
+			return row;
+		} catch (RuntimeException re) {
+			// the search cursor can access the cache while rows are being read, so 
+			// handle the runtime exceptions the same as when the search was executed
+			this.connection.forceCleanUp();
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21019));
 		}
-		
-		// process the next object in the search result set
-		while (objResultsItr.hasNext()) {
+	}
+	
+	private List<?> nextSortedRow() throws TranslatorException {
+		if (sortedRows == null) {
+			sortedRows = sortRows().iterator();
+		}
+		return (sortedRows.hasNext() ? sortedRows.next() : null);
+	}
+	
+	/*
+	 * The groups are sorted and limited once all the rows have been aggregated 
+	 */
+	private List<?> nextAggregateRow() throws TranslatorException {
+		if (aggregateRows == null) {
+			List<?> row = nextRow();
+			while (row != null) {
+				aggregation.addRow(row);
+				row = nextRow();
+			}
+			List<List<?>> rows = aggregation.getRows();
+			if (sortColumns != null) {
+				Collections.sort(rows, getRowComparator());
+			}
+			int limit = visitor.getLimit();
+			if (limit > 0 && rows.size() > limit) {
+				rows = rows.subList(0, limit);
+			}
+			aggregateRows = rows.iterator();
+		}
+		return (aggregateRows.hasNext() ? aggregateRows.next() : null);
+	}
+	
+	/*
+	 * When there's a limit, only the top rows are kept, in a bounded heap whose head is the row
+	 * that sorts last, so the memory used is proportional to the limit instead of the number of rows.
+	 * Otherwise, all the rows that the search returned are sorted.
+	 */
+	private List<List<?>> sortRows() throws TranslatorException {
+		Comparator<List<?>> comparator = getRowComparator();
+		
+		int limit = visitor.getLimit();
+		List<List<?>> rows = null;
+		if (limit > 0) {
+			PriorityQueue<List<?>> heap = new PriorityQueue<List<?>>(11, Collections.reverseOrder(comparator));
+			List<?> row = nextRow();
+			while (row != null) {
+				if (heap.size() < limit) {
+					heap.add(row);
+				} else if (comparator.compare(row, heap.peek()) < 0) {
+					heap.poll();
+					heap.add(row);
+				}
+				row = nextRow();
+			}
+			rows = new ArrayList<List<?>>(heap);
+		} else {
+			rows = new ArrayList<List<?>>();
+			List<?> row = nextRow();
+			while (row != null) {
+				rows.add(row);
+				row = nextRow();
+			}
+		}
+		Collections.sort(rows, comparator);
+		return rows;
+	}
+	
+	private Comparator<List<?>> getRowComparator() {
+		final int[] cols = sortColumns;
+		final boolean[] desc = sortDescending;
+		
+		// nulls sort low, which is the default null order
+		return new Comparator<List<?>>() {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			public int compare(List<?> r1, List<?> r2) {
+				for (int i = 0; i < cols.length; i++) {
+					Object v1 = r1.get(cols[i]);
+					Object v2 = r2.get(cols[i]);
+					int c = 0;
+					if (v1 == null) {
+						c = (v2 == null ? 0 : -1);
+					} else if (v2 == null) {
+						c = 1;
+					} else {
+						c = ((Comparable) v1).compareTo(v2);
+					}
+					if (c != 0) {
+						return (desc[i] ? -c : c);
+					}
+				}
+				return 0;
+			}
+		};
+	}
+	
+	/*
+	 * Each row is a new array that's filled in place and returned as is.  For a child table, the children 
+	 * of the current root object are read as the rows are requested, instead of creating all their rows at once.  
+	 */
+	private List<?> nextRow() throws TranslatorException {
+		while (true) {
+			if (childLevel >= 0) {
+				final Object child = nextChild();
+				if (child != null) {
+					if (childPredicate != null && !childPredicate.matches(childParent, child)) {
+						continue;
+					}
+					final Object[] r = new Object[colSize];
+					addColumnData(r, childParent, child);
+					return Arrays.asList(r);
+				}
+				childParent = null;
+			}
 			
-			final Object o = objResultsItr.next();
+			// process the next object in the search result set
+			if (!searchCursor.hasNext()) {
+				return null;
+			}
+			
+			final Object o = searchCursor.next();
 			
 			if (depth > 0) {
-				
-				Method rootClassReadMethod = ClassRegistry.findMethod(this.getClassRegistry().getReadClassMethods(this.connection.getCacheClassType().getName()), fkeyColNIS, this.connection.getCacheClassType().getName());
-
-				Object parentValue = null;
-				try {
-					parentValue = ClassRegistry.executeGetMethod(rootClassReadMethod, o);
-				} catch (Exception e1) {
-					throw new TranslatorException(e1);
-				}
-				
-				final List<Object> rows = processNode(o, parentValue);
-
-				if (rows != null && rows.size() > 0) {
-				
-					if (rows.size() < 2) return (List<Object>) rows.get(0);
-					
-					cacheResultsIt = rows.iterator();
-					if (cacheResultsIt != null && cacheResultsIt.hasNext()) {
-						// return the next row in the cache 
-						return (List<Object>) cacheResultsIt.next();
-					} 
+				if (children == null) {
+					children = new Iterator<?>[childReaders.length];
 				}
+				children[0] = getChildren(readChildren(0, o));
+				childLevel = 0;
+				childParent = o;
+				continue;
+			}
+			
+			final Object[] r = new Object[colSize];
+			if (projected) {
+				addProjectedData(r, (Object[]) o);
 			} else {
-				final List<Object> r = new ArrayList<Object>(colSize);
-				addColumnData(r, o, null);
-				
-				return r;
+				if (extractorAttributeNames != null && o.getClass() != extractorClass) {
+					extractorClass = o.getClass();
+					rowExtractor = this.getClassRegistry().getRowExtractor(extractorClass, extractorAttributeNames, projectedTypes);
+				}
+				if (rowExtractor != null) {
+					rowExtractor.extract(o, r);
+				} else {
+					addColumnData(r, o, null);
+				}
 			}
-
+			return Arrays.asList(r);
+		}
+	}
+	
+	/*
+	 * Returns the next object of the deepest nesting level, in a depth first traversal 
+	 * of the children of the current root object, or null when there are no more. 
+	 */
+	private Object nextChild() throws TranslatorException {
+		final int last = children.length - 1;
+		while (childLevel >= 0) {
+			Iterator<?> it = children[childLevel];
+			if (it == null || !it.hasNext()) {
+				children[childLevel--] = null;
+				continue;
+			}
+			Object child = it.next();
+			if (child == null) {
+				continue;
+			}
+			if (childLevel == last) {
+				return child;
+			}
+			children[++childLevel] = getChildren(readChildren(childLevel, child));
 		}
 		return null;
 	}
 	
-	private void addColumnData(List<Object> r, Object parent, Object child) throws TranslatorException {
+	private Object readChildren(int level, Object parent) throws TranslatorException {
+		try {
+			return childReaders[level].eval(parent);
+		} catch (ScriptException e) {
+			throw new TranslatorException(e);
+		}
+	}
+	
+	/*
+	 * The child objects are iterated in place, from the collection, the values of the map, or the array
+	 * that the parent object refers to.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Iterator<?> getChildren(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Collection) {
+			return ((Collection) value).iterator();
+		} 
+		if (value instanceof Map) {
+			return ((Map) value).values().iterator();
+		}
+		if (value.getClass().isArray()) {
+			return Arrays.asList((Object[]) value).iterator();
+		}
+		return Collections.singletonList(value).iterator();
+	}
+	
+	private void addProjectedData(Object[] r, Object[] values) throws TranslatorException {
+		for (int i = 0; i < colSize; i++) {
+			try {
+				r[i] = converters[i].convert(values[i]);
+			} catch (TransformationException t) {
+				throw new TranslatorException(t);
+			}
+		}
+	}
+	
+	private void addColumnData(Object[] r, Object parent, Object child) throws TranslatorException {
 		
 
 		for (int i = 0; i < colSize; i++) {
 			if (colObjects[i] == null) {
-				r.add( (child != null ? child : parent));
+				r[i] = (child != null ? child : parent);
 				continue;
 			}
 			try {
 				
-				if (colObjects[i] instanceof DepthNode) {
-					sc.setAttribute(ClassRegistry.OBJECT_NAME, child, ScriptContext.ENGINE_SCOPE);	
-					
-				} else {
-					sc.setAttribute(ClassRegistry.OBJECT_NAME, parent, ScriptContext.ENGINE_SCOPE);	
-				} 	
-				
 				Node n = (Node) colObjects[i];
-				n.reset();
-				Object v = n.compiledScript.eval(sc);
-
-				Object rtn = this.getClassRegistry().getObjectDataTypeManager().convertFromObjectType(v, n.dataType);					
+				Object v = n.getCompiledScript().eval(colObjects[i] instanceof DepthNode ? child : parent);
 
-				r.add(rtn);
+				r[i] = converters[i].convert(v);
 
 
 			} catch (TransformationException t) {
@@ -411,276 +690,31 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 
 	}
 	
-//	// the recursive logic will traverse to the bottom depth and work its way back up
-//	// expanding the the number of rows
-//	@SuppressWarnings("rawtypes")
-//	private List<Object> processDepth(List<Object> mainRow, Map<String, DepthNode> loadedDepths) throws TranslatorException {
-//		
-//		// assumptions:
-//		// -  only 1 1-to-many relationship can be specified per query, so if more than one column maps to a collection, 
-//		//		its assumed they all map to the same collection
-//		
-//		Object[] cols = new Object[colSize];
-//
-//		int rows = 0;
-//		if (this.depth > 0) {
-//			for (Object r: mainRow) {
-//				if (r instanceof DepthNode) {
-//					DepthNode dn = (DepthNode) r;
-//					dn.incrementPosition();
-//					if (dn.isLast() && dn.isObjectValue()) {
-//						Object o = evaluate(dn);
-//						dn.setValue(o);
-//						cols[dn.getColumnLocation()] = o;
-//					} else {
-//						List<Object> newrows = processNode(dn);
-//						dn.setValue(newrows);
-//						cols[dn.getColumnLocation()] = newrows;
-//						rows = newrows.size();
-//					}
-//				}
-//			}
-//		}
-//		
-//		// contains the rows to be returned
-//		List<Object> results = new ArrayList<Object>();
-//
-//		for (int r=0; r < rows; r++) {
-//			
-//			List<Object> row = new ArrayList<Object>(colSize);
-//
-//			for (int c = 0; c < colSize; c++) {
-//				Object o = mainRow.get(c);
-//				if (cols[c] == null) {
-//					row.add(o);
-//				} else {
-//					if (cols[c] instanceof List) {
-//						List l = (List) cols[c];
-//						row.add(l.get(r));
-//					} else {
-//						row.add(cols[c]);				
-////						CompiledScript cs = getCompiledNode(depthNode.getCurrentNodeName());
-//
-//					}
-//					
-//				}
-//					
-//			}
-//			
-//			results.add(row);
-//		}
-//			
-//		return results;	
-//
-//	}
-//	
-	@SuppressWarnings("rawtypes")
-	private List<Object> processNode(Object parent, Object value) throws TranslatorException {
-		// contains the rows to be returned
-		List<Object> results = new ArrayList<Object>();
-
-			//	Collections.emptyList();
-		if (value == null) return results;
-		
-		try {
-			
-			if (Collection.class.isAssignableFrom(value.getClass())) {
-				Collection c = (Collection) value;
-								
-				for (Iterator it=c.iterator(); it.hasNext();) {
-					Object o = it.next();
-					
-					final List<Object> r = new ArrayList<Object>(colSize);
-
-					if (o == null) {
-						r.add(null);
-						continue;
-					}
-					
-					addColumnData(r, parent, o);
-					
-					results.add(r);
-
-				}
-	
-			} else if (Map.class.isAssignableFrom(value.getClass())) {
-				Map m = (Map) value;
-				
-				Iterator it = m.values().iterator();
-				while(it.hasNext()) {
-					Object o = it.next();
-					
-					final List<Object> r = new ArrayList<Object>(colSize);
-					
-					if (o == null) {
-						r.add(null);
-						continue;
-					}
-					
-					addColumnData(r, parent, o);
-					results.add(r);
-
-				}
-			} else if (value.getClass().isArray()) {
-				Object[] a = (Object[]) value;
-								
-				for (int i = 0; i < a.length; i++) {
-					final List<Object> r = new ArrayList<Object>(colSize);
-					
-					if (a[i] == null) {
-						r.add(null);
-						continue;
-					}
-					
-					addColumnData(r, parent, a[i]);
-					results.add(r);
-
-				}
-
-			} else {
-				final List<Object> r = new ArrayList<Object>(colSize);		
-				addColumnData(r, parent, value);
-				results.add(r);
-			}
-
-		} catch (TranslatorException te) {
-			throw te;
-		}
-		return results;
-	}
-//	
-//	@SuppressWarnings("rawtypes")
-//	private List<Object> processNode(DepthNode depthNode) throws TranslatorException {
-//		List<Object> rows = new ArrayList<Object>();
-//			//	Collections.emptyList();
-//		
-//		Object obj = depthNode.getValue();
-//		if (obj == null) return rows;
-//		
-//		try {
-//			
-//			if (depthNode.isCollection()) {
-//				Collection c = (Collection) obj;
-//				
-//				CompiledScript cs = getCompiledNode(depthNode.getCurrentNodeName());
-//								
-//				for (Iterator it=c.iterator(); it.hasNext();) {
-//					Object o = it.next();
-//
-//					if (o == null) {
-//						rows.add(null);
-//						continue;
-//					}
-//
-//					sc.setAttribute(ClassRegistry.OBJECT_NAME, o, ScriptContext.ENGINE_SCOPE);
-//
-//					Object v = cs.eval(sc);
-//					
-//					DepthNode ndn;
-//					ndn = (DepthNode) depthNode.clone();
-//
-//					ndn.setValue(v);
-//					
-//					if (ndn.hasNext()) {
-//						ndn.incrementPosition();
-//						
-//						List<Object> values = processNode(ndn);
-//						rows.add(values);
-//					} else {
-//						rows.add(v);
-//					}
-//				}
-//				
-//			} else if (depthNode.isMap()) {
-//				Map m = (Map) obj;
-//				
-//				CompiledScript cs = getCompiledNode(depthNode.getCurrentNodeName());
-//				depthNode.incrementPosition();
-//				Iterator it = m.values().iterator();
-//				while(it.hasNext()) {
-//					Object o = it.next();
-//					if (o == null) {
-//						rows.add(null);
-//						continue;
-//					}
-//					sc.setAttribute(ClassRegistry.OBJECT_NAME, o, ScriptContext.ENGINE_SCOPE);
-//
-//					Object v = cs.eval(sc);
-//					
-//					DepthNode ndn;
-//					ndn = (DepthNode) depthNode.clone();
-//					ndn.setValue(v);
-//					ndn.incrementPosition();
-//					
-//					List<Object> values = processNode(ndn);
-//					rows.add(values);
-//
-//				}
-//				
-//			} else if (depthNode.isArray()) {
-//				Object[] a = (Object[]) obj;
-//								
-//				CompiledScript cs = getCompiledNode(depthNode.getCurrentNodeName());
-//				depthNode.incrementPosition();
-//				
-//				for (int i = 0; i < a.length; i++) {
-//
-//					if (a[i] == null) {
-//						rows.add(null);
-//						continue;
-//					}
-//					sc.setAttribute(ClassRegistry.OBJECT_NAME, a[i], ScriptContext.ENGINE_SCOPE);
-//
-//					Object v = cs.eval(sc);
-//					
-//					DepthNode ndn;
-//					ndn = (DepthNode) depthNode.clone();
-//					ndn.setValue(v);
-//					ndn.incrementPosition();
-//					
-//					List<Object> values = processNode(ndn);
-//					rows.add(values);
-//
-//				}
-//				// 
-//			} else {
-//				sc.setAttribute(ClassRegistry.OBJECT_NAME, depthNode.getValue(), ScriptContext.ENGINE_SCOPE);
-//				Object v = getCompiledNode(depthNode.getCurrentNodeName()).eval(sc);
-//				depthNode.incrementPosition();
-//				rows.add(v);
-//				return rows;
-//			}
-//
-//		} catch (TranslatorException te) {
-//			throw te;
-//		} catch (ScriptException e) {
-//			throw new TranslatorException(e);
-//		}
-//		return rows;
-//	}
-	
-//	private Object evaluate(DepthNode depthNode) throws TranslatorException {
-//		sc.setAttribute(ClassRegistry.OBJECT_NAME, depthNode.getValue(), ScriptContext.ENGINE_SCOPE);
-//
-//		Object v;
-//		try {
-//			v = getCompiledNode(depthNode.getCurrentNodeName()).eval(sc);
-//		} catch (ScriptException e) {
-//			throw new TranslatorException(e);
-//		}
-//		return v;
-//
-//	}
-	
 	@Override
 	public void close() {
+		// stop any reading ahead before the connection is released
+		if (this.searchCursor != null) {
+			this.searchCursor.close();
+		}
+		this.searchCursor = null;
+
 		super.close();
 		this.query = null;
 		this.colObjects = null;
+		this.projectedTypes = null;
+		this.converters = null;
+		this.childReaders = null;
+		this.childPredicate = null;
+		this.aggregation = null;
+		this.aggregateRows = null;
+		this.sortedRows = null;
+		this.rowExtractor = null;
+		this.extractorClass = null;
 		this.scriptEngine = null;
-		this.sc = null;
 	
-		this.cacheResultsIt = null;
+		this.children = null;
+		this.childLevel = -1;
+		this.childParent = null;
 		
 		if (visitor != null) {
 			this.visitor.cleanUp();
@@ -696,7 +730,7 @@ public class ObjectExecution extends ObjectBaseExecution implements ResultSetExe
 	
 	
 	
-	private CompiledScript getCompiledNode(String nodeName) throws ScriptException {
+	private ObjectCompiledScript getCompiledNode(String nodeName) throws ScriptException {
 		return scriptEngine.compile(ClassRegistry.OBJECT_NAME + "." + nodeName);
 	}
 	
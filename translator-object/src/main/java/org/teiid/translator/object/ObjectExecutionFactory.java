@@ -22,10 +22,18 @@
 
 package org.teiid.translator.object;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.resource.cci.ConnectionFactory;
 
+import org.teiid.core.util.LRUCache;
 import org.teiid.language.Argument;
 import org.teiid.language.Command;
 import org.teiid.language.QueryExpression;
@@ -36,6 +44,7 @@ import org.teiid.translator.MetadataProcessor;
 import org.teiid.translator.ProcedureExecution;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.TranslatorProperty;
 import org.teiid.translator.UpdateExecution;
 import org.teiid.translator.object.metadata.JavaBeanMetadataProcessor;
 
@@ -51,8 +60,20 @@ public abstract class ObjectExecutionFactory extends
 		ExecutionFactory<ConnectionFactory, ObjectConnection> {
 
 	public static final int MAX_SET_SIZE = 10000;
+	public static final int DEFAULT_PLAN_CACHE_SIZE = 256;
+	public static final int DEFAULT_INSERT_BATCH_SIZE = 1000;
+	public static final int DEFAULT_DELETE_BATCH_SIZE = 1000;
+	public static final int MAX_PREFETCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
 	private boolean searchabilityBasedOnAnnotations = false;
 	
+	private int planCacheSize = DEFAULT_PLAN_CACHE_SIZE;
+	private int insertBatchSize = DEFAULT_INSERT_BATCH_SIZE;
+	private int deleteBatchSize = DEFAULT_DELETE_BATCH_SIZE;
+	private Map<String, ObjectExecutionPlan> planCache = createPlanCache(DEFAULT_PLAN_CACHE_SIZE);
+	private AtomicLong planCacheHits = new AtomicLong();
+	private AtomicLong planCacheMisses = new AtomicLong();
+	private Executor prefetchExecutor = new PrefetchExecutor();
+	
 	public ObjectExecutionFactory() {
 		setSourceRequiredForMetadata(true);
 		setMaxInCriteriaSize(MAX_SET_SIZE);
@@ -108,6 +129,181 @@ public abstract class ObjectExecutionFactory extends
 		this.searchabilityBasedOnAnnotations = useAnnotations;
 	}
 
+	/**
+	 * Returns the number of objects a search should read from the cache per request.
+	 * The default of zero indicates the search results are read using a single request.
+	 * @return int fetch size
+	 */
+	public int getFetchSize() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the number of pages a search should read ahead, on a background thread, 
+	 * of the page being consumed.  The default of zero disables reading ahead.
+	 * @return int prefetch depth
+	 */
+	public int getPrefetchDepth() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the executor that reads the pages of a search ahead, when a prefetch depth is specified.
+	 * It runs at most {@link #MAX_PREFETCH_THREADS} reads at a time, a search started while they are all 
+	 * busy reads its pages when needed.  
+	 * @return Executor, or null when the pages aren't read ahead
+	 */
+	public Executor getPrefetchExecutor() {
+		if (getPrefetchDepth() <= 0) {
+			return null;
+		}
+		return prefetchExecutor;
+	}
+	
+	/*
+	 * Runs each read ahead on its own thread, which ends when the search is read or closed.  No thread 
+	 * is kept once the searches are done, so there's nothing to be shut down when the translator is undeployed, 
+	 * since the ExecutionFactory has no lifecycle method that's called then.
+	 */
+	private static final class PrefetchExecutor implements Executor {
+		private final Semaphore threads = new Semaphore(MAX_PREFETCH_THREADS);
+		private final AtomicInteger threadCount = new AtomicInteger();
+		
+		@Override
+		public void execute(final Runnable command) {
+			if (!threads.tryAcquire()) {
+				throw new RejectedExecutionException();
+			}
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						command.run();
+					} finally {
+						threads.release();
+					}
+				}
+			}, "ObjectTranslator-Prefetch-" + threadCount.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			try {
+				t.start();
+			} catch (OutOfMemoryError e) {
+				// the thread couldn't be created, so the pages are read when needed
+				threads.release();
+				throw new RejectedExecutionException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of objects a search should read per batch, when the search can stream
+	 * all the objects in the cache instead of querying them.  The default of zero indicates the 
+	 * objects are always queried.
+	 * @return int full scan batch size
+	 */
+	public int getFullScanBatchSize() {
+		return 0;
+	}
+	
+	/**
+	 * Returns true when the search can be asked to return only the selected attributes,
+	 * instead of the objects, when only attributes of the root object are selected.
+	 * @return boolean
+	 */
+	public boolean supportsProjection() {
+		return false;
+	}
+	
+	/**
+	 * Returns true when the search returns the objects in the ORDER BY order.  When false, 
+	 * and ORDER BY is supported, the execution sorts the rows, and applies the limit after sorting.
+	 * @return boolean
+	 */
+	public boolean supportsOrderByInSearch() {
+		return true;
+	}
+
+	/**
+	 * Returns the number of query shapes whose execution plans are cached, see {@link ObjectExecutionPlan}.
+	 * @return int plan cache size, where zero or less disables the cache
+	 */
+	@TranslatorProperty(display="Execution Plan Cache Size", description="The number of query shapes whose column accessors and conversions are cached, so they're reused by the queries that only differ in the criteria values, zero or less disables the cache [default=256]",advanced=true)
+	public int getPlanCacheSize() {
+		return planCacheSize;
+	}
+	
+	public void setPlanCacheSize(int planCacheSize) {
+		this.planCacheSize = planCacheSize;
+		this.planCache = createPlanCache(planCacheSize);
+	}
+	
+	/**
+	 * Returns the number of rows of a bulk or batched insert that are written to the cache together, 
+	 * using one request to find the existing objects and one request to write the objects.
+	 * @return int insert batch size
+	 */
+	@TranslatorProperty(display="Insert Batch Size", description="The number of rows of a bulk or batched insert that are checked for existing objects, and written to the cache, using a single request, one or less writes each row using separate requests [default=1000]",advanced=true)
+	public int getInsertBatchSize() {
+		return insertBatchSize;
+	}
+	
+	public void setInsertBatchSize(int insertBatchSize) {
+		this.insertBatchSize = insertBatchSize;
+	}
+	
+	/**
+	 * Returns the number of objects a DELETE removes from the cache at a time, without waiting
+	 * for each remove to complete before sending the next.
+	 * @return int delete batch size
+	 */
+	@TranslatorProperty(display="Delete Batch Size", description="The number of objects found by the criteria of a DELETE that are removed from the cache concurrently, one or less removes each object in turn [default=1000]",advanced=true)
+	public int getDeleteBatchSize() {
+		return deleteBatchSize;
+	}
+	
+	public void setDeleteBatchSize(int deleteBatchSize) {
+		this.deleteBatchSize = deleteBatchSize;
+	}
+	
+	private static Map<String, ObjectExecutionPlan> createPlanCache(int size) {
+		if (size <= 0) {
+			return null;
+		}
+		return Collections.synchronizedMap(new LRUCache<String, ObjectExecutionPlan>(size));
+	}
+	
+	/**
+	 * @return the number of executions that reused a cached plan
+	 */
+	public long getPlanCacheHits() {
+		return planCacheHits.get();
+	}
+	
+	/**
+	 * @return the number of executions that had to create their plan
+	 */
+	public long getPlanCacheMisses() {
+		return planCacheMisses.get();
+	}
+	
+	ObjectExecutionPlan getExecutionPlan(String key, ClassRegistry registry) {
+		Map<String, ObjectExecutionPlan> cache = this.planCache;
+		ObjectExecutionPlan plan = (cache == null ? null : cache.get(key));
+		if (plan != null && plan.isFor(registry)) {
+			planCacheHits.incrementAndGet();
+			return plan;
+		}
+		planCacheMisses.incrementAndGet();
+		return null;
+	}
+	
+	void putExecutionPlan(String key, ObjectExecutionPlan plan) {
+		Map<String, ObjectExecutionPlan> cache = this.planCache;
+		if (cache != null) {
+			cache.put(key, plan);
+		}
+	}
+
 	@Override
     public boolean supportsCompareCriteriaEquals() {
 		return true;
@@ -152,4 +348,14 @@ public abstract class ObjectExecutionFactory extends
 	public boolean supportsUpsert() {
 	    return true;
 	}
+	
+	@Override
+	public boolean supportsBulkUpdate() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsBatchedUpdates() {
+		return true;
+	}
 }
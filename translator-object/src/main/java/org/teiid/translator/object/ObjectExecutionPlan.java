@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.ObjectScriptEngine.ObjectCompiledScript;
+
+/**
+ * The ObjectExecutionPlan is what an {@link ObjectExecution} prepares from the selected columns
+ * of the command: the compiled column accessors, the value conversions, the readers of the 
+ * child objects and the sort order.  The plans are cached by the {@link ObjectExecutionFactory}, 
+ * so the executions of a recurring command only visit it for the criteria.
+ * <p>
+ * A plan is shared by the executions, so it isn't changed after it's created.   
+ */
+final class ObjectExecutionPlan {
+	
+	final ClassRegistry classRegistry;
+	final Object[] colObjects;
+	final Class<?>[] projectedTypes;
+	final ValueConverter[] converters;
+	final int depth;
+	final String[] projectedAttributeNames;
+	final String[] extractorAttributeNames;
+	final int[] sortColumns;
+	final boolean[] sortDescending;
+	// the readers of the children at each nesting level of a child table
+	final ObjectCompiledScript[] childReaders;
+	
+	ObjectExecutionPlan(ClassRegistry classRegistry, Object[] colObjects, Class<?>[] projectedTypes, ValueConverter[] converters, int depth, 
+			String[] projectedAttributeNames, String[] extractorAttributeNames, int[] sortColumns, boolean[] sortDescending, ObjectCompiledScript[] childReaders) {
+		this.classRegistry = classRegistry;
+		this.colObjects = colObjects;
+		this.projectedTypes = projectedTypes;
+		this.converters = converters;
+		this.depth = depth;
+		this.projectedAttributeNames = projectedAttributeNames;
+		this.extractorAttributeNames = extractorAttributeNames;
+		this.sortColumns = sortColumns;
+		this.sortDescending = sortDescending;
+		this.childReaders = childReaders;
+	}
+	
+	boolean isFor(ClassRegistry registry) {
+		return this.classRegistry == registry;
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import org.teiid.translator.TranslatorException;
+
+/**
+ * Applies the values of an upsert to the object already in the cache, see 
+ * {@link ObjectConnection#upsert(Object, Object, ObjectMerge)}.  The merge can be 
+ * called more than once, with the latest object, when the object is changed concurrently.
+ * The existing object can be the instance in the cache, so the merge must not change it.
+ */
+public interface ObjectMerge {
+
+	/**
+	 * @param existing the object in the cache
+	 * @return Object to replace the existing object with, a different instance than the existing object
+	 * @throws TranslatorException
+	 */
+	public Object merge(Object existing) throws TranslatorException;
+	
+}
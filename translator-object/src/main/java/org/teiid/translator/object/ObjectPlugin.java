@@ -59,6 +59,12 @@ public class ObjectPlugin {
 		TEIID21017,
 		TEIID21018,
 		TEIID21019,
+		TEIID21020,
+		TEIID21021,
+		TEIID21022,
+		TEIID21023,
+		TEIID21024,
+		TEIID21025,
 		TEIID21302,
     }
 }
@@ -0,0 +1,664 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.script.ScriptException;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.core.util.StringUtil;
+import org.teiid.language.AndOr;
+import org.teiid.language.ColumnReference;
+import org.teiid.language.Comparison;
+import org.teiid.language.Condition;
+import org.teiid.language.Expression;
+import org.teiid.language.In;
+import org.teiid.language.IsNull;
+import org.teiid.language.Like;
+import org.teiid.language.Literal;
+import org.teiid.language.Not;
+import org.teiid.metadata.Column;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.ObjectScriptEngine.ObjectCompiledScript;
+import org.teiid.translator.object.util.ObjectUtil;
+
+/**
+ * ObjectPredicate is the WHERE criteria of a query compiled so that it can be evaluated 
+ * directly against the objects in the cache.  The attribute values are read using the 
+ * {@link ObjectScriptEngine}, and the criteria is compiled once so that the objects can be
+ * filtered as they are read, in a single pass.
+ * <p>
+ * Comparison, In, Like, IsNull, Not and AndOr criteria are supported, and are evaluated 
+ * using SQL three-valued logic, where a <code>null</code> value is unknown.  For a child table, the 
+ * criteria on the attributes of the child objects is evaluated against each child row, see 
+ * {@link #matches(Object, Object)}, and the foreign key is read from the object in the cache.
+ * <p>
+ * The predicate is serializable, so that it can be evaluated by the node that owns the objects. 
+ * The attribute accessors are compiled again when the predicate is deserialized.
+ * <p>
+ * A predicate should only be used by the query it was compiled for.
+ */
+public final class ObjectPredicate implements Serializable {
+	
+	private static final long serialVersionUID = -2956329870472325815L;
+
+	/**
+	 * A compiled criteria node, returns TRUE, FALSE or <code>null</code> when the result is unknown. 
+	 */
+	interface Criteria extends Serializable {
+		Boolean evaluate(Object o, Object child) throws TranslatorException;
+	}
+	
+	/**
+	 * A compiled expression, returns the value as the Teiid runtime type.
+	 */
+	interface Value extends Serializable {
+		Object getValue(Object o, Object child) throws TranslatorException;
+	}
+	
+	private Criteria criteria;
+	
+	private ObjectPredicate(Criteria criteria) {
+		this.criteria = criteria;
+	}
+	
+	/**
+	 * Compiles the WHERE criteria of the query that was visited, except for the criteria of a child table 
+	 * that's evaluated against the child rows, see {@link CriteriaPlanner#getChildCriteria(ObjectVisitor)}.
+	 * @param visitor that visited the query
+	 * @param conn whose class registry is used to read and convert the attribute values of the cache class type
+	 * @return ObjectPredicate, or <code>null</code> when the query has no criteria on the objects in the cache
+	 * @throws TranslatorException if the criteria can't be evaluated against the objects in the cache
+	 */
+	public static ObjectPredicate compile(ObjectVisitor visitor, ObjectConnection conn) throws TranslatorException {
+		return compile(CriteriaPlanner.getObjectCriteria(visitor), visitor, conn);
+	}
+	
+	/**
+	 * Compiles part of the WHERE criteria of the query that was visited, see {@link CriteriaPlanner}.
+	 * @param condition to be compiled
+	 * @param visitor that visited the query
+	 * @param conn whose class registry is used to read and convert the attribute values of the cache class type
+	 * @return ObjectPredicate, or <code>null</code> when the condition is <code>null</code>
+	 * @throws TranslatorException if the criteria can't be evaluated against the objects in the cache
+	 */
+	public static ObjectPredicate compile(Condition condition, ObjectVisitor visitor, ObjectConnection conn) throws TranslatorException {
+		if (condition == null) {
+			return null;
+		}
+		return new ObjectPredicate(new Compiler(visitor, conn.getClassRegistry(), conn.getCacheClassType()).compile(condition));
+	}
+	
+	/**
+	 * Compiles the condition using a compiler that can read other values, such as 
+	 * the aggregate values of a group, see {@link ObjectAggregation}.
+	 */
+	static ObjectPredicate compile(Condition condition, Compiler compiler) throws TranslatorException {
+		return new ObjectPredicate(compiler.compile(condition));
+	}
+	
+	/**
+	 * @param o is the object from the cache
+	 * @return boolean true when the criteria evaluates to TRUE for the object
+	 * @throws TranslatorException
+	 */
+	public boolean matches(Object o) throws TranslatorException {
+		if (o == null) {
+			return false;
+		}
+		return Boolean.TRUE.equals(criteria.evaluate(o, null));
+	}
+	
+	/**
+	 * @param o is the object from the cache
+	 * @param child is the child object of the row, read from the object in the cache 
+	 * @return boolean true when the criteria evaluates to TRUE for the child row
+	 * @throws TranslatorException
+	 */
+	public boolean matches(Object o, Object child) throws TranslatorException {
+		if (o == null || child == null) {
+			return false;
+		}
+		return Boolean.TRUE.equals(criteria.evaluate(o, child));
+	}
+	
+	static class Compiler {
+		private ObjectVisitor visitor;
+		private ClassRegistry classRegistry;
+		private Class<?> cacheClassType;
+		private Condition condition;
+		
+		Compiler(ObjectVisitor visitor, ClassRegistry classRegistry, Class<?> cacheClassType) {
+			this.visitor = visitor;
+			this.classRegistry = classRegistry;
+			this.cacheClassType = cacheClassType;
+		}
+		
+		Criteria compile(Condition c) throws TranslatorException {
+			this.condition = c;
+			
+			if (c instanceof AndOr) {
+				AndOr andOr = (AndOr) c;
+				Criteria left = compile(andOr.getLeftCondition());
+				Criteria right = compile(andOr.getRightCondition());
+				if (andOr.getOperator() == AndOr.Operator.AND) {
+					return new AndCriteria(left, right);
+				}
+				return new OrCriteria(left, right);
+			} else if (c instanceof Not) {
+				return new NotCriteria(compile(((Not) c).getCriteria()));
+			} else if (c instanceof Comparison) {
+				Comparison comparison = (Comparison) c;
+				return new ComparisonCriteria(compile(comparison.getLeftExpression()), comparison.getOperator(), compile(comparison.getRightExpression()), c.toString());
+			} else if (c instanceof In) {
+				return compileIn((In) c);
+			} else if (c instanceof Like) {
+				return compileLike((Like) c);
+			} else if (c instanceof IsNull) {
+				IsNull isNull = (IsNull) c;
+				return new IsNullCriteria(compile(isNull.getExpression()), isNull.isNegated());
+			}
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21023, c));
+		}
+		
+		private Criteria compileIn(In in) throws TranslatorException {
+			Value left = compile(in.getLeftExpression());
+			
+			List<Expression> rhs = in.getRightExpressions();
+			HashSet<Object> literals = new HashSet<Object>(rhs.size());
+			Value[] values = new Value[rhs.size()];
+			boolean allLiterals = true;
+			boolean hasNull = false;
+			for (int i = 0; i < values.length; i++) {
+				Expression e = rhs.get(i);
+				values[i] = compile(e);
+				if (e instanceof Literal) {
+					Object v = ((Literal) e).getValue();
+					if (v == null) {
+						hasNull = true;
+					} else if (v instanceof BigDecimal) {
+						// equals on BigDecimal depends upon the scale
+						allLiterals = false;
+					} else {
+						literals.add(v);
+					}
+				} else {
+					allLiterals = false;
+				}
+			}
+			
+			// the literal values are hashed, so the cost doesn't grow with the number of values
+			if (allLiterals) {
+				return new InSetCriteria(left, literals, hasNull, in.isNegated());
+			}
+			return new InCriteria(left, values, in.isNegated(), in.toString());
+		}
+		
+		private Criteria compileLike(Like like) throws TranslatorException {
+			if (like.getMode() != Like.MatchMode.LIKE || !(like.getRightExpression() instanceof Literal)) {
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21023, like));
+			}
+			Value left = compile(like.getLeftExpression());
+			Object pattern = ((Literal) like.getRightExpression()).getValue();
+			if (pattern == null) {
+				return new UnknownCriteria();
+			}
+			return new LikeCriteria(left, toPattern(pattern.toString(), like.getEscapeCharacter(), like), like.isNegated());
+		}
+		
+		Value compile(Expression e) throws TranslatorException {
+			if (e instanceof Literal) {
+				return new LiteralValue(((Literal) e).getValue());
+			}
+			if (!(e instanceof ColumnReference) || ((ColumnReference) e).getMetadataObject() == null) {
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21023, condition));
+			}
+			
+			Column col = ((ColumnReference) e).getMetadataObject();
+			String nis = ObjectUtil.getRecordName(col);
+			if (nis.equalsIgnoreCase("this")) { //$NON-NLS-1$
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21021, condition, col.getName()));
+			}
+			
+			// for a child table, the foreign key is the referenced attribute of the object in the cache, 
+			// and like the selected columns, an attribute with a path is read from the child object 
+			boolean child = false;
+			if (visitor.getRootTableName() != null) {
+				if (visitor.getForeignKey().getColumns().contains(col)) {
+					nis = visitor.getForeignKeyReferenceColName();
+				} else if (CriteriaPlanner.isChildAttribute(col, visitor)) {
+					nis = StringUtil.getLastToken(nis, "."); //$NON-NLS-1$
+					child = true;
+				}
+			}
+			
+			Class<?> sourceType = getAttributeType(col, visitor, classRegistry, cacheClassType);
+			AttributeValue value = new AttributeValue(ClassRegistry.OBJECT_NAME + "." + nis, sourceType, DataTypeManager.getDataTypeClass(col.getRuntimeType()), child); //$NON-NLS-1$
+			value.resolve(classRegistry.getReadScriptEngine(), classRegistry.getObjectDataTypeManager());
+			return value;
+		}
+	}
+	
+	/**
+	 * Returns the declared type of the attribute that the column is read from, so that its values are 
+	 * converted the same way when they're compared as when they're selected, see {@link ObjectExecution}.
+	 * @param col of the table that was queried
+	 * @param visitor that visited the query
+	 * @param classRegistry 
+	 * @param cacheClassType is the class of the objects in the cache
+	 * @return Class, or <code>null</code> when the type isn't known
+	 * @throws TranslatorException
+	 */
+	static Class<?> getAttributeType(Column col, ObjectVisitor visitor, ClassRegistry classRegistry, Class<?> cacheClassType) throws TranslatorException {
+		String nis = ObjectUtil.getRecordName(col);
+		if (visitor.getRootTableName() != null) {
+			if (visitor.getForeignKey().getColumns().contains(col)) {
+				return classRegistry.getAttributeType(cacheClassType, visitor.getForeignKeyReferenceColName());
+			}
+			if (CriteriaPlanner.isChildAttribute(col, visitor)) {
+				// the attribute is read from the child objects at the path of the foreign key
+				Class<?> childType = classRegistry.getAttributeType(cacheClassType, visitor.getForeignKeyPath());
+				return classRegistry.getAttributeType(childType, StringUtil.getLastToken(nis, ".")); //$NON-NLS-1$
+			}
+		}
+		return classRegistry.getAttributeType(cacheClassType, nis);
+	}
+	
+	static final class AndCriteria implements Criteria {
+		private static final long serialVersionUID = 6409232738616186307L;
+		private Criteria left;
+		private Criteria right;
+		
+		AndCriteria(Criteria left, Criteria right) {
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Boolean l = left.evaluate(o, child);
+			if (Boolean.FALSE.equals(l)) {
+				return Boolean.FALSE;
+			}
+			Boolean r = right.evaluate(o, child);
+			if (Boolean.FALSE.equals(r)) {
+				return Boolean.FALSE;
+			}
+			return (l == null || r == null ? null : Boolean.TRUE);
+		}
+	}
+	
+	static final class OrCriteria implements Criteria {
+		private static final long serialVersionUID = -5395212435432427461L;
+		private Criteria left;
+		private Criteria right;
+		
+		OrCriteria(Criteria left, Criteria right) {
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Boolean l = left.evaluate(o, child);
+			if (Boolean.TRUE.equals(l)) {
+				return Boolean.TRUE;
+			}
+			Boolean r = right.evaluate(o, child);
+			if (Boolean.TRUE.equals(r)) {
+				return Boolean.TRUE;
+			}
+			return (l == null || r == null ? null : Boolean.FALSE);
+		}
+	}
+	
+	static final class NotCriteria implements Criteria {
+		private static final long serialVersionUID = 2871633557361096476L;
+		private Criteria criteria;
+		
+		NotCriteria(Criteria criteria) {
+			this.criteria = criteria;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			return negate(criteria.evaluate(o, child), true);
+		}
+	}
+	
+	static final class UnknownCriteria implements Criteria {
+		private static final long serialVersionUID = -1873392183467330417L;
+
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			return null;
+		}
+	}
+	
+	static final class IsNullCriteria implements Criteria {
+		private static final long serialVersionUID = 4925718826004327095L;
+		private Value value;
+		private boolean negated;
+		
+		IsNullCriteria(Value value, boolean negated) {
+			this.value = value;
+			this.negated = negated;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			return (value.getValue(o, child) == null) != negated;
+		}
+	}
+	
+	static final class ComparisonCriteria implements Criteria {
+		private static final long serialVersionUID = -3208962264718484473L;
+		private Value left;
+		private Comparison.Operator op;
+		private Value right;
+		private String sql;
+		
+		ComparisonCriteria(Value left, Comparison.Operator op, Value right, String sql) {
+			this.left = left;
+			this.op = op;
+			this.right = right;
+			this.sql = sql;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Object l = left.getValue(o, child);
+			if (l == null) {
+				return null;
+			}
+			Object r = right.getValue(o, child);
+			if (r == null) {
+				return null;
+			}
+			if (op == Comparison.Operator.EQ) {
+				return isEqual(l, r, sql);
+			}
+			if (op == Comparison.Operator.NE) {
+				return !isEqual(l, r, sql);
+			}
+			int result = compare(l, r, sql);
+			switch (op) {
+			case LT:
+				return result < 0;
+			case LE:
+				return result <= 0;
+			case GT:
+				return result > 0;
+			default:
+				return result >= 0;
+			}
+		}
+	}
+	
+	static final class InSetCriteria implements Criteria {
+		private static final long serialVersionUID = 8164530474186254394L;
+		private Value left;
+		private HashSet<Object> literals;
+		private Boolean noMatch;
+		private boolean negated;
+		
+		InSetCriteria(Value left, HashSet<Object> literals, boolean hasNull, boolean negated) {
+			this.left = left;
+			this.literals = literals;
+			this.noMatch = (hasNull ? null : Boolean.FALSE);
+			this.negated = negated;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Object l = left.getValue(o, child);
+			if (l == null) {
+				return null;
+			}
+			return negate(literals.contains(l) ? Boolean.TRUE : noMatch, negated);
+		}
+	}
+	
+	static final class InCriteria implements Criteria {
+		private static final long serialVersionUID = 1372845129741358932L;
+		private Value left;
+		private Value[] values;
+		private boolean negated;
+		private String sql;
+		
+		InCriteria(Value left, Value[] values, boolean negated, String sql) {
+			this.left = left;
+			this.values = values;
+			this.negated = negated;
+			this.sql = sql;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Object l = left.getValue(o, child);
+			if (l == null) {
+				return null;
+			}
+			Boolean result = Boolean.FALSE;
+			for (Value value : values) {
+				Object r = value.getValue(o, child);
+				if (r == null) {
+					result = null;
+				} else if (isEqual(l, r, sql)) {
+					return negate(Boolean.TRUE, negated);
+				}
+			}
+			return negate(result, negated);
+		}
+	}
+	
+	static final class LikeCriteria implements Criteria {
+		private static final long serialVersionUID = -7046216869592437962L;
+		private Value left;
+		private Pattern regex;
+		private boolean negated;
+		
+		LikeCriteria(Value left, Pattern regex, boolean negated) {
+			this.left = left;
+			this.regex = regex;
+			this.negated = negated;
+		}
+		
+		@Override
+		public Boolean evaluate(Object o, Object child) throws TranslatorException {
+			Object l = left.getValue(o, child);
+			if (l == null) {
+				return null;
+			}
+			return regex.matcher(l.toString()).matches() != negated;
+		}
+	}
+	
+	static final class LiteralValue implements Value {
+		private static final long serialVersionUID = 3391860312545387466L;
+		private Object value;
+		
+		LiteralValue(Object value) {
+			this.value = value;
+		}
+		
+		@Override
+		public Object getValue(Object o, Object child) {
+			return value;
+		}
+	}
+	
+	/**
+	 * Reads a value of the row, which is an Object[] of values that are already the Teiid runtime type.
+	 */
+	static final class RowValue implements Value {
+		private static final long serialVersionUID = 4410523957811723630L;
+		private int index;
+		
+		RowValue(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public Object getValue(Object o, Object child) {
+			return ((Object[]) o)[index];
+		}
+	}
+	
+	/**
+	 * Reads an attribute of the object, or of the child object, and converts it from its declared type 
+	 * to the Teiid runtime type, when the type is not <code>null</code>.
+	 */
+	static final class AttributeValue implements Value {
+		private static final long serialVersionUID = -8216069390713651258L;
+		private String script;
+		private Class<?> sourceType;
+		private Class<?> type;
+		private boolean child;
+		private transient ObjectCompiledScript cs;
+		private transient ValueConverter converter;
+		
+		AttributeValue(String script, Class<?> sourceType, Class<?> type) {
+			this(script, sourceType, type, false);
+		}
+		
+		AttributeValue(String script, Class<?> sourceType, Class<?> type, boolean child) {
+			this.script = script;
+			this.sourceType = sourceType;
+			this.type = type;
+			this.child = child;
+		}
+		
+		void resolve(ObjectScriptEngine engine, ObjectDataTypeManager dataTypeManager) throws TranslatorException {
+			this.converter = dataTypeManager.getFromObjectTypeConverter(sourceType, type);
+			try {
+				this.cs = engine.compile(script);
+			} catch (ScriptException se) {
+				throw new TranslatorException(se);
+			}
+		}
+		
+		/*
+		 * The class registry of the translator isn't available on the node the predicate was sent to
+		 */
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			try {
+				resolve(DeserializedReader.ENGINE, DeserializedReader.DATA_TYPE_MANAGER);
+			} catch (TranslatorException e) {
+				throw new InvalidObjectException(e.getMessage());
+			}
+		}
+		
+		@Override
+		public Object getValue(Object o, Object childObject) throws TranslatorException {
+			if (child) {
+				if (childObject == null) {
+					return null;
+				}
+				o = childObject;
+			}
+			try {
+				return converter.convert(cs.eval(o));
+			} catch (ScriptException se) {
+				throw new TranslatorException(se);
+			} catch (TransformationException te) {
+				throw new TranslatorException(te);
+			}
+		}
+	}
+	
+	/*
+	 * Created when the first predicate is deserialized
+	 */
+	private static final class DeserializedReader {
+		static final ObjectScriptEngine ENGINE = new ObjectScriptEngine(true);
+		static final ObjectDataTypeManager DATA_TYPE_MANAGER = new ObjectDataTypeManager();
+	}
+	
+	static Boolean negate(Boolean b, boolean negated) {
+		if (b == null || !negated) {
+			return b;
+		}
+		return !b;
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static int compare(Object l, Object r, String c) throws TranslatorException {
+		if (l instanceof Comparable && (l.getClass().isInstance(r) || r.getClass().isInstance(l))) {
+			return ((Comparable) l).compareTo(r);
+		}
+		throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21022, c, l.getClass().getName(), r.getClass().getName()));
+	}
+	
+	static boolean isEqual(Object l, Object r, String c) throws TranslatorException {
+		if (l instanceof Comparable && (l.getClass().isInstance(r) || r.getClass().isInstance(l))) {
+			return compare(l, r, c) == 0;
+		}
+		return l.equals(r);
+	}
+	
+	/**
+	 * Converts the LIKE pattern, where % matches any number of characters and _ matches a 
+	 * single character, into a regular expression.
+	 */
+	static Pattern toPattern(String like, Character escape, Condition c) throws TranslatorException {
+		StringBuilder regex = new StringBuilder(like.length() + 8);
+		StringBuilder literal = new StringBuilder();
+		boolean escaped = false;
+		for (int i = 0; i < like.length(); i++) {
+			char ch = like.charAt(i);
+			if (escaped) {
+				literal.append(ch);
+				escaped = false;
+			} else if (escape != null && ch == escape.charValue()) {
+				escaped = true;
+			} else if (ch == '%' || ch == '_') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(ch == '%' ? ".*" : "."); //$NON-NLS-1$ //$NON-NLS-2$
+			} else {
+				literal.append(ch);
+			}
+		}
+		if (escaped) {
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21023, c));
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+	
+}
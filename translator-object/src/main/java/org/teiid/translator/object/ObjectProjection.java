@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.io.Serializable;
+
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ObjectPredicate.AttributeValue;
+
+/**
+ * ObjectProjection reads the selected attributes of an object in the cache, and returns them
+ * as an Object[] in the order of the projected columns, see {@link ObjectVisitor#getProjectedAttributeNames()}.
+ * <p>
+ * Like the {@link ObjectPredicate}, the projection is serializable, so that the attributes can be 
+ * read by the node that owns the objects, and only the attribute values are returned.
+ */
+public final class ObjectProjection implements Serializable {
+	
+	private static final long serialVersionUID = 5720118369211245329L;
+	
+	private AttributeValue[] values;
+	
+	private ObjectProjection(AttributeValue[] values) {
+		this.values = values;
+	}
+	
+	/**
+	 * @param attributeNames are the names of the root object attributes to be read
+	 * @param classRegistry used to read the attribute values
+	 * @return ObjectProjection
+	 * @throws TranslatorException if an attribute can't be read
+	 */
+	public static ObjectProjection compile(String[] attributeNames, ClassRegistry classRegistry) throws TranslatorException {
+		AttributeValue[] values = new AttributeValue[attributeNames.length];
+		for (int i = 0; i < values.length; i++) {
+			// the values are converted by the execution, like the values selected by a query
+			values[i] = new AttributeValue(ClassRegistry.OBJECT_NAME + "." + attributeNames[i], null, null); //$NON-NLS-1$
+			values[i].resolve(classRegistry.getReadScriptEngine(), classRegistry.getObjectDataTypeManager());
+		}
+		return new ObjectProjection(values);
+	}
+	
+	/**
+	 * @param o is the object from the cache
+	 * @return Object[] of the attribute values
+	 * @throws TranslatorException
+	 */
+	public Object[] project(Object o) throws TranslatorException {
+		Object[] result = new Object[values.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = values[i].getValue(o, null);
+		}
+		return result;
+	}
+
+}
@@ -29,6 +29,9 @@ import java.beans.MethodDescriptor;
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.sql.SQLException;
 import java.util.Collections;
@@ -48,7 +51,6 @@ import javax.script.ScriptException;
 import javax.script.SimpleBindings;
 
 import org.teiid.api.exception.query.FunctionExecutionException;
-import org.teiid.core.util.LRUCache;
 import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.function.FunctionMethods;
@@ -64,7 +66,34 @@ import org.teiid.translator.object.util.ObjectUtil;
 public final class ObjectScriptEngine extends AbstractScriptEngine implements Compilable {
 	
 	private static Pattern splitter = Pattern.compile("\\."); //$NON-NLS-1$
-	private Map<Class<?>, Map<String, Method>> clazzMaps = Collections.synchronizedMap(new LRUCache<Class<?>, Map<String,Method>>(100));	
+	/*
+	 * The introspected methods are stored with each class, so reading them doesn't lock, and they 
+	 * are released with the class when its module is undeployed.  
+	 */
+	private final ClassValue<Map<String, Method>> clazzMaps = new ClassValue<Map<String, Method>>() {
+		@Override
+		protected Map<String, Method> computeValue(Class<?> clazz) {
+			try {
+				if (forReads) {
+					return Collections.unmodifiableMap(getReadMethodMap(clazz));
+				}
+				return Collections.unmodifiableMap(getWriteMethodMap(clazz));
+			} catch (ScriptException e) {
+				throw new IntrospectionFailure(e);
+			}
+		}
+	};
+	
+	/**
+	 * Carries the introspection failure out of {@link ClassValue#computeValue(Class)}
+	 */
+	private static final class IntrospectionFailure extends RuntimeException {
+		private static final long serialVersionUID = -5373838536224707614L;
+
+		IntrospectionFailure(ScriptException e) {
+			super(e);
+		}
+	}
 
 	private static final String SET_ARG_ATTRIBUTE = "set";
 
@@ -80,7 +109,7 @@ public final class ObjectScriptEngine extends AbstractScriptEngine implements Co
 		}
 
 		@Override
-		public CompiledScript compile(String script) throws ScriptException {
+		public ObjectCompiledScript compile(String script) throws ScriptException {
 			final String[] parts = splitter.split(script);
 			final int[] indexes = new int[parts.length];
 			for (int i = 1; i < parts.length; i++) {
@@ -96,74 +125,158 @@ public final class ObjectScriptEngine extends AbstractScriptEngine implements Co
 					indexes[i] = -1;
 				}
 			}
-			return new CompiledScript() {
-				
-				@Override
-				public ScriptEngine getEngine() {
-					return ObjectScriptEngine.this;
+			return new ObjectCompiledScript(parts, indexes);
+		}
+		
+		/**
+		 * The compiled script for an attribute path.  When reading, each getter in the path is resolved 
+		 * to a {@link MethodHandle} for the class of the object it's called on, and reused while the objects 
+		 * are of the same class, so the values are read without the reflective lookup and argument array
+		 * of {@link Method#invoke(Object, Object...)}. 
+		 */
+		public final class ObjectCompiledScript extends CompiledScript {
+			private final String[] parts;
+			private final int[] indexes;
+			private final Accessor[] accessors;
+			
+			ObjectCompiledScript(String[] parts, int[] indexes) {
+				this.parts = parts;
+				this.indexes = indexes;
+				this.accessors = new Accessor[parts.length];
+			}
+			
+			@Override
+			public ScriptEngine getEngine() {
+				return ObjectScriptEngine.this;
+			}
+			
+			@Override
+			public Object eval(ScriptContext sc) throws ScriptException {
+				if (sc == null) {
+					throw new NullPointerException();
+				}
+				Object obj = null;
+				if (parts.length > 0) {
+					obj = sc.getAttribute(parts[0]);
+				}
+				if (forReads) {
+					return eval(obj);
+				}
+				if (obj == null) {
+					return null;
 				}
 				
-				@Override
-				public Object eval(ScriptContext sc) throws ScriptException {
-					if (sc == null) {
-						throw new NullPointerException();
-					}
-					Object obj = null;
-					if (parts.length > 0) {
-						obj = sc.getAttribute(parts[0]);
-					}
-					if (obj == null) {
-						return null;
+				Map<String, Method> methodMap = getMethodMap(obj.getClass());
+				for (int i = 1; i < parts.length; i++) {
+
+					String part = parts[i];
+					Method m = findMethod(methodMap,part);
+					if (m == null) {
+						obj = getIndexedValue(obj, i);
+						continue;
 					}
 					
-					Map<String, Method> methodMap = getMethodMap(obj.getClass());
-					for (int i = 1; i < parts.length; i++) {
+					obj = callMethod(m, obj, sc, parts);
 
-						String part = parts[i];
-						Method m = findMethod(methodMap,part);
+				}
+				return obj;
+			}
+			
+			/**
+			 * Reads the attribute path from the object, without using a {@link ScriptContext}.  
+			 * Can only be used by an engine that is for reads.
+			 * @param obj is the root object of the path
+			 * @return Object value
+			 * @throws ScriptException
+			 */
+			public Object eval(Object obj) throws ScriptException {
+				for (int i = 1; i < parts.length && obj != null; i++) {
+					Accessor accessor = accessors[i];
+					if (accessor == null || accessor.clazz != obj.getClass()) {
+						Method m = findMethod(getMethodMap(obj.getClass()), parts[i]);
 						if (m == null) {
-							int index = indexes[i];
-							if (index > 0) { //assume it's a list/array
-								if (obj instanceof List) {
-									try {
-										obj = ((List<?>)obj).get(index - 1);
-									} catch (IndexOutOfBoundsException e) {
-										obj = null;
-									}
-									continue;
-								}
-								try {
-									obj = FunctionMethods.array_get(obj, index);
-									continue;
-								} catch (FunctionExecutionException e) {
-									throw new ScriptException(e);
-								} catch (SQLException e) {
-									throw new ScriptException(e);
-								}
-							}
-							throw new ScriptException(QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31111, part, obj.getClass()));
+							obj = getIndexedValue(obj, i);
+							continue;
 						}
-						
-						obj = callMethod(m, obj, sc, parts);
-
+						accessor = new Accessor(obj.getClass(), m);
+						accessors[i] = accessor;
 					}
-					return obj;
+					obj = accessor.get(obj);
 				}
-			};
+				return obj;
+			}
+			
+			private Object getIndexedValue(Object obj, int i) throws ScriptException {
+				int index = indexes[i];
+				if (index > 0) { //assume it's a list/array
+					if (obj instanceof List) {
+						try {
+							return ((List<?>)obj).get(index - 1);
+						} catch (IndexOutOfBoundsException e) {
+							return null;
+						}
+					}
+					try {
+						return FunctionMethods.array_get(obj, index);
+					} catch (FunctionExecutionException e) {
+						throw new ScriptException(e);
+					} catch (SQLException e) {
+						throw new ScriptException(e);
+					}
+				}
+				throw new ScriptException(QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31111, parts[i], obj.getClass()));
+			}
 		}
 		
-		public synchronized Map<String, Method> getMethodMap(Class<?> clazz) throws ScriptException {
-
-			Map<String, Method> methodMap = clazzMaps.get(clazz);
-			if (methodMap != null) {
-				return methodMap;
-			}
-
-			if (this.forReads) {
-				return getReadMethodMap(clazz);
+		/**
+		 * A getter for a class.  The accessor is immutable, so it can be shared with other threads
+		 * that use the same compiled script.
+		 */
+		static final class Accessor {
+			private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+			
+			final Class<?> clazz;
+			private final Method method;
+			private final MethodHandle handle;
+			
+			Accessor(Class<?> clazz, Method m) {
+				this.clazz = clazz;
+				this.method = m;
+				MethodHandle mh = null;
+				try {
+					mh = MethodHandles.publicLookup().unreflect(m).asType(GETTER_TYPE);
+				} catch (IllegalAccessException e) {
+					// not accessible as a handle, so the method is invoked reflectively
+				}
+				this.handle = mh;
 			}
 			
-			return getWriteMethodMap(clazz);
+			Object get(Object obj) throws ScriptException {
+				if (handle == null) {
+					try {
+						return ClassRegistry.executeGetMethod(method, obj);
+					} catch (Exception e) {
+						throw new ScriptException(e);
+					}
+				}
+				try {
+					return handle.invokeExact(obj);
+				} catch (Error e) {
+					throw e;
+				} catch (Exception e) {
+					throw new ScriptException(e);
+				} catch (Throwable t) {
+					throw new ScriptException(new Exception(t));
+				}
+			}
+		}
+		
+		public Map<String, Method> getMethodMap(Class<?> clazz) throws ScriptException {
+			try {
+				return clazzMaps.get(clazz);
+			} catch (IntrospectionFailure e) {
+				throw (ScriptException) e.getCause();
+			}
 		}
 			
 		private Map<String, Method> getReadMethodMap(Class<?> clazz) throws ScriptException {
@@ -200,7 +313,6 @@ public final class ObjectScriptEngine extends AbstractScriptEngine implements Co
 					}
 				}
 
-				clazzMaps.put(clazz, methodMap);
 			} catch (IntrospectionException e) {
 				throw new ScriptException(e);
 			}
@@ -246,7 +358,6 @@ public final class ObjectScriptEngine extends AbstractScriptEngine implements Co
 					}
 				}
 				
-				clazzMaps.put(clazz, methodMap);
 			} catch (IntrospectionException e) {
 				throw new ScriptException(e);
 			}
@@ -255,7 +366,7 @@ public final class ObjectScriptEngine extends AbstractScriptEngine implements Co
 		
 		
 		@Override
-		public CompiledScript compile(Reader script) throws ScriptException {
+		public ObjectCompiledScript compile(Reader script) throws ScriptException {
 			try {
 				return compile(ObjectConverterUtil.convertToString(script));
 			} catch (IOException e) {
@@ -26,9 +26,14 @@ package org.teiid.translator.object;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.script.CompiledScript;
 import javax.script.ScriptContext;
@@ -77,14 +82,28 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		if (command instanceof BatchedUpdates) {
 			BatchedUpdates updates = (BatchedUpdates)this.command;
 			result = new int[updates.getUpdateCommands().size()];
+			InsertBatch batch = new InsertBatch();
 			for (Command cmd:updates.getUpdateCommands()) {
+				ObjectVisitor visitor = visit(cmd);
 				
-				this.result[index++] = executeUpdate(cmd);
+				// consecutive inserts, not upserts, of root objects are written to the cache together,
+				// any other command first writes the inserts that precede it
+				if (cmd instanceof Insert && isBatchable(visitor)) {
+					addToBatch(batch, visitor, null);
+					this.result[index++] = 1;
+					continue;
+				}
+				writeBatch(batch);
+				this.result[index++] = executeUpdate(cmd, visitor, null);
 			}		
+			writeBatch(batch);
+			
+		} else if (command instanceof Insert && ((Insert)command).getParameterValues() != null) {
+			result = executeBulkInsert((Insert)command);
 			
 		} else {
 			result = new int[1];
-			this.result[index] = executeUpdate(command);
+			this.result[index] = executeUpdate(command, visit(command), null);
 		}
 	
 	}
@@ -94,9 +113,7 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		return this.result;
 	}
 	
-	private int executeUpdate(Command command ) throws TranslatorException {
-		
-		ClassRegistry classRegistry = this.getClassRegistry();
+	private ObjectVisitor visit(Command command) throws TranslatorException {
 		ObjectVisitor visitor = createVisitor();
 		visitor.visitNode(command);
 
@@ -104,6 +121,39 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		if (visitor.getExceptions() != null && !visitor.getExceptions().isEmpty()) {
 			throw visitor.getExceptions().get(0);
 		}
+		return visitor;
+	}
+	
+	private int[] executeBulkInsert(Insert insert) throws TranslatorException {
+		ObjectVisitor visitor = visit(insert);
+		Iterator<? extends List<?>> rows = insert.getParameterValues();
+		
+		int cnt = 0;
+		if (isBatchable(visitor)) {
+			InsertBatch batch = new InsertBatch();
+			while (rows.hasNext()) {
+				addToBatch(batch, visitor, rows.next());
+				++cnt;
+			}
+			writeBatch(batch);
+		} else {
+			while (rows.hasNext()) {
+				executeUpdate(insert, visitor, rows.next());
+				++cnt;
+			}
+		}
+		
+		int[] counts = new int[cnt];
+		Arrays.fill(counts, 1);
+		return counts;
+	}
+	
+	/**
+	 * @param row the values of the {@link Parameter}s of a bulk insert, or null 
+	 */
+	private int executeUpdate(Command command, ObjectVisitor visitor, List<?> row) throws TranslatorException {
+		
+		ClassRegistry classRegistry = this.getClassRegistry();
 		
 		clz = ObjectUtil.getRegisteredClass(classRegistry, visitor);
 
@@ -127,7 +177,7 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 				if (visitor.getPrimaryTable() != null) {
 					this.connection.getDDLHandler().setStagingTarget(true);
 				}
-				cnt = handleInsert((Insert) command, visitor, clz, writeMethods);
+				cnt = handleInsert((Insert) command, visitor, clz, writeMethods, row);
 				
 			} else {
 				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21004, new Object[] {command.getClass().getName()}));
@@ -145,23 +195,16 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		return cnt;
 	}
 
-	private int handleInsert(Insert insert, ObjectVisitor visitor,  Class<?> clz, Map<String, Method> writeMethods) throws TranslatorException {
+	private int handleInsert(Insert insert, ObjectVisitor visitor,  Class<?> clz, Map<String, Method> writeMethods, List<?> row) throws TranslatorException {
 
-		Object entity = null;
-		try {
-			// create the new instance from the classLoader the the class
-			// was created from
-			entity = clz.newInstance();
-		} catch (Exception e) {
-			throw new TranslatorException(e);
-		}  
+		Object entity = newInstance(clz);
 
 		// first determine if the table to be inserted into has a foreign key relationship, which
 		// would then be considered a child table, otherwise it must have a primary key
 		ForeignKey fk = visitor.getForeignKey();
 		
 		if (fk != null) {
-			int r = handleInsertChildObject(visitor, entity, writeMethods, clz);
+			int r = handleInsertChildObject(visitor, entity, writeMethods, clz, row);
 			return r;
 		}
 		
@@ -172,29 +215,142 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21006, new Object[] {"insert", visitor.getTableName()}));
 		}
 
-		Object keyValue = updateEntity(clz, writeMethods, entity, keyCol.getSourceName(), keyCol, visitor, true);
+		Object keyValue = updateEntity(clz, writeMethods, entity, keyCol.getSourceName(), keyCol, visitor, true, row);
 		
-		//TODO: for 1.8 use putIfAbsent
-		
-		//TEIID-4603 dont use DSLSearch, but use the direct key to the cache to lookup the object
-		Object rootObject = connection.get(keyValue);
-
-		if (rootObject != null) {
-		    if (!insert.isUpsert()) {
-		        throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21007, new Object[] {insert.getTable().getName(), keyValue}));
-		    }
-		    keyValue = updateEntity(clz, writeMethods, rootObject, keyCol.getSourceName(), keyCol, visitor, true);
-		    entity = rootObject;
+		//TEIID-4603 dont use DSLSearch, but write using the direct key to the cache, 
+		// as a single atomic operation so that concurrent inserts of the key can't both succeed
+		if (insert.isUpsert()) {
+			connection.upsert(keyValue, entity, new RowMerge(clz, writeMethods, keyCol, visitor, row));
+			return 1;
 		}
 		
-		connection.add(keyValue, entity);
+		if (connection.addIfAbsent(keyValue, entity) != null) {
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21007, new Object[] {insert.getTable().getName(), keyValue}));
+		}
 
 		return 1;
 
 	}
+	
+	/**
+	 * Applies the values of an upsert row to the object already in the cache
+	 */
+	private class RowMerge implements ObjectMerge {
+		private Class<?> clz;
+		private Map<String, Method> writeMethods;
+		private Column keyCol;
+		private ObjectVisitor visitor;
+		private List<?> row;
+		
+		RowMerge(Class<?> clz, Map<String, Method> writeMethods, Column keyCol, ObjectVisitor visitor, List<?> row) {
+			this.clz = clz;
+			this.writeMethods = writeMethods;
+			this.keyCol = keyCol;
+			this.visitor = visitor;
+			this.row = row;
+		}
+
+		@Override
+		public Object merge(Object existing) throws TranslatorException {
+			// the existing object can be the instance in the cache, so the row is applied to a copy
+			Object merged = ObjectUtil.copyProperties(existing, newInstance(clz));
+			updateEntity(clz, writeMethods, merged, keyCol.getSourceName(), keyCol, visitor, true, row);
+			return merged;
+		}
+	}
+	
+	/**
+	 * Inserts of root objects can be batched, as the object only needs to be added to the cache 
+	 * when its key is absent.  Upserts aren't batched, as each is a conditional write of the merged object. 
+	 */
+	private boolean isBatchable(ObjectVisitor visitor) {
+		return visitor.getForeignKey() == null && visitor.getPrimaryKeyCol() != null && !visitor.getInsert().isUpsert() 
+				&& env.getInsertBatchSize() > 1;
+	}
+	
+	private void addToBatch(InsertBatch batch, ObjectVisitor visitor, List<?> row) throws TranslatorException {
+		if (!batch.visitors.isEmpty() && batch.visitors.get(0).getInsert().getTable().getMetadataObject() != visitor.getInsert().getTable().getMetadataObject()) {
+			writeBatch(batch);
+		}
+		batch.visitors.add(visitor);
+		batch.rows.add(row);
+		if (batch.visitors.size() >= env.getInsertBatchSize()) {
+			writeBatch(batch);
+		}
+	}
+	
+	/**
+	 * Creates the objects of all the inserts in the batch, and adds them to the cache together, each only 
+	 * when its key is absent.  When keys already exist, the exception names the first of them in row order, 
+	 * but unlike inserting the rows one at a time, the rows with other keys have been added.
+	 */
+	private void writeBatch(InsertBatch batch) throws TranslatorException {
+		if (batch.visitors.isEmpty()) {
+			return;
+		}
+		
+		ObjectVisitor first = batch.visitors.get(0);
+		ClassRegistry classRegistry = this.getClassRegistry();
+		clz = ObjectUtil.getRegisteredClass(classRegistry, first);
+		Map<String, Method> writeMethods = classRegistry.getWriteClassMethods(clz.getSimpleName());
+		Column keyCol = first.getPrimaryKeyCol();
+		
+		try {
+			if (first.getPrimaryTable() != null) {
+				this.connection.getDDLHandler().setStagingTarget(true);
+			}
+			
+			Map<Object, Object> toWrite = new LinkedHashMap<Object, Object>();
+			for (int i = 0; i < batch.visitors.size(); i++) {
+				Object entity = newInstance(clz);
+				Object keyValue = updateEntity(clz, writeMethods, entity, keyCol.getSourceName(), keyCol, batch.visitors.get(i), true, batch.rows.get(i));
+				if (toWrite.containsKey(keyValue)) {
+					// the preceding rows are kept, as they are when inserted one at a time
+					addAllIfAbsent(toWrite, first);
+					throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21007, new Object[] {first.getInsert().getTable().getName(), keyValue}));
+				}
+				toWrite.put(keyValue, entity);
+			}
+			
+			addAllIfAbsent(toWrite, first);
+			
+		} catch (TranslatorException te) {
+			throw te;
+		} catch (RuntimeException re) {
+			// see executeUpdate
+			this.connection.forceCleanUp();
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21019));
+		} finally {
+			this.connection.getDDLHandler().setStagingTarget(false);
+			batch.visitors.clear();
+			batch.rows.clear();
+		}
+	}
+	
+	private void addAllIfAbsent(Map<Object, Object> toWrite, ObjectVisitor visitor) throws TranslatorException {
+		Map<Object, Object> existing = connection.addAllIfAbsent(toWrite);
+		if (existing.isEmpty()) {
+			return;
+		}
+		for (Object keyValue : toWrite.keySet()) {
+			if (existing.containsKey(keyValue)) {
+				throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21007, new Object[] {visitor.getInsert().getTable().getName(), keyValue}));
+			}
+		}
+	}
+	
+	private static Object newInstance(Class<?> clz) throws TranslatorException {
+		try {
+			// create the new instance from the classLoader the the class
+			// was created from
+			return clz.newInstance();
+		} catch (Exception e) {
+			throw new TranslatorException(e);
+		}  
+	}
 
     private Object updateEntity(Class<?> clz, Map<String, Method> writeMethods,
-            Object entity, String keyColName, Column pkCol, ObjectVisitor visitor, boolean writeKey) throws TranslatorException {
+            Object entity, String keyColName, Column pkCol, ObjectVisitor visitor, boolean writeKey, List<?> row) throws TranslatorException {
         List<ColumnReference> columns = visitor.getInsert().getColumns();
         List<Expression> values = ((ExpressionValueSource) visitor.getInsert()
                 .getValueSource()).getValues();
@@ -203,14 +359,9 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		
 		for (int i = 0; i < columns.size(); i++) {
 			Column column = columns.get(i).getMetadataObject();
-			Object value = values.get(i);
+			Object value = getValue(values.get(i), row);
 
 			if (keyColName.equals(column.getSourceName()) ) {
-
-				if (value instanceof Literal) {
-					Literal literalValue = (Literal) value;
-					value = literalValue.getValue();
-				}
 					
 				if (writeKey) {
 				    writeColumnData(entity, column, value, writeMethods);
@@ -221,11 +372,6 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 				keyValue = convertKeyValue(keyValue, pkCol);				
 			} else {
 				
-				if (value instanceof Literal) {
-					Literal literalValue = (Literal) value;
-					value = literalValue.getValue();
-				}
-				
 				writeColumnData(entity, column, value, writeMethods);
 
 			}
@@ -233,9 +379,23 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
         return keyValue;
     }
 
+	private static Object getValue(Expression value, List<?> row) {
+		if (value instanceof Literal) {
+			return ((Literal) value).getValue();
+		}
+		if (value instanceof Parameter) {
+			return row.get(((Parameter) value).getValueIndex());
+		}
+		return value;
+	}
+
 	@SuppressWarnings("rawtypes")
-	private int handleInsertChildObject(ObjectVisitor visitor, Object newEntity, Map<String, Method> writeMethods, Class<?> clzz) throws TranslatorException {
+	private int handleInsertChildObject(ObjectVisitor visitor, Object newEntity, Map<String, Method> writeMethods, Class<?> clzz, List<?> row) throws TranslatorException {
 
+		if (visitor.isNestedChildTable()) {
+			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21025, new Object[] {visitor.getTableName()}));
+		}
+		
 		ForeignKey fk = visitor.getForeignKey();
 
 		String fkeyColNIS = fk.getNameInSource();
@@ -244,7 +404,7 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		// get the root method based on the foreign key, will be used to add the child
 		Method rootClassWriteMethod = ClassRegistry.findMethod(this.getClassRegistry().getWriteClassMethods(this.connection.getCacheClassType().getName()), fkeyColNIS, this.connection.getCacheClassType().getName());
 			
-		Object fkeyValue = updateEntity(clz, writeMethods, newEntity, fkeyRefColumnName, visitor.getPrimaryKeyCol(), visitor, false);
+		Object fkeyValue = updateEntity(clz, writeMethods, newEntity, fkeyRefColumnName, visitor.getPrimaryKeyCol(), visitor, false, row);
 		
 		// dont get the object based on key to the cache, do the DSL search so that its ensured the object
 		// exist for this root object type.  Using the get(key) could return an invalid object type if 
@@ -330,34 +490,43 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21018, new Object[] {visitor.getTableName()}));
 		}
 
-		// Find all the objects that meet the criteria for deletion
-		List<Object> toDelete = connection.getSearchType().performSearch(visitor, executionContext) ;
-				//env.search(visitor, connection, executionContext);
-		if (toDelete == null || toDelete.isEmpty()) {
+		// when the criteria is only on the key, the objects are read directly by key, and like the search, 
+		// only the objects of the cache class type are removed, each only if it hasn't changed since it was read
+		Collection<Object> keys = getKeys(visitor, keyCol);
+		if (keys != null) {
+			int cnt = 0;
+			for (Map.Entry<Object, Object> e : getCacheClassObjects(connection.getAll(keys)).entrySet()) {
+				if (connection.remove(e.getKey(), e.getValue())) {
+					++cnt;
+				}
+			}
+			return cnt;
+		}
+		
+		// otherwise find all the objects that meet the criteria for deletion, and collect their keys
+		// before removing them, so that the search isn't affected by the removals
+		keys = readKeys(visitor, keyCol);
+		
+		if (keys.isEmpty()) {
 			LogManager.logInfo(LogConstants.CTX_CONNECTOR, ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21013, new Object[] {visitor.getTableName(), visitor.getWhereCriteria()}));
 			return 0;
 		}
-		int cnt = 0;
-		try {
-			ObjectScriptEngine scriptEngine =this.getClassRegistry().getReadScriptEngine();
-
-			CompiledScript cs = scriptEngine.compile(ClassRegistry.OBJECT_NAME + "." +  ObjectUtil.getRecordName(keyCol));
-
-			for (Object o : toDelete) {
-				sc.setAttribute(ClassRegistry.OBJECT_NAME, o,
-						ScriptContext.ENGINE_SCOPE);
-				Object v = cs.eval(sc);
-
-				v = convertKeyValue(v, keyCol);
-				connection.remove(v);
-				++cnt;
-
+		
+		// the removes of a batch are sent without waiting for each other, and the batch
+		// size bounds the number of removes that are outstanding
+		int batchSize = Math.max(1, env.getDeleteBatchSize());
+		List<Object> batch = new ArrayList<Object>(Math.min(batchSize, keys.size()));
+		for (Object v : keys) {
+			batch.add(v);
+			if (batch.size() == batchSize) {
+				connection.removeAll(batch);
+				batch.clear();
 			}
-
-		} catch (ScriptException e1) {
-			throw new TranslatorException(e1);
 		}
-		return cnt;
+		if (!batch.isEmpty()) {
+			connection.removeAll(batch);
+		}
+		return keys.size();
 		
 		// TODO:  delete container class 
 //		else {
@@ -425,6 +594,43 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 //			}
 
 	}
+	
+	private List<Object> readKeys(ObjectVisitor visitor, Column keyCol) throws TranslatorException {
+		String keyName = ObjectUtil.getRecordName(keyCol);
+		if (env.supportsProjection()) {
+			// only the key of each object is needed, so the search can return just the keys
+			visitor.setProjectedAttributeNames(new String[] {keyName});
+		}
+		
+		List<Object> keys = new ArrayList<Object>();
+		SearchCursor cursor = connection.getSearchType().performSearch(visitor, executionContext) ;
+		try {
+			ObjectScriptEngine scriptEngine =this.getClassRegistry().getReadScriptEngine();
+
+			CompiledScript cs = scriptEngine.compile(ClassRegistry.OBJECT_NAME + "." +  keyName);
+
+			while (cursor.hasNext()) {
+				Object o = cursor.next();
+				Object v = null;
+				if (visitor.isProjectionPushedDown()) {
+					v = ((Object[]) o)[0];
+				} else {
+					sc.setAttribute(ClassRegistry.OBJECT_NAME, o,
+							ScriptContext.ENGINE_SCOPE);
+					v = cs.eval(sc);
+				}
+
+				keys.add(convertKeyValue(v, keyCol));
+			}
+
+		} catch (ScriptException e1) {
+			throw new TranslatorException(e1);
+		} finally {
+			cursor.close();
+		}
+
+		return keys;
+	}
 
 	// Private method to actually do an update operation. 
 	private int handleUpdate(Update update, ObjectVisitor visitor, ClassRegistry classRegistry,  Class<?> clz, Map<String, Method> writeMethods) throws TranslatorException {
@@ -433,58 +639,96 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 			throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21017, new Object[] {visitor.getTableName()}));
 		}
 		
-		// Find all the objects that meet the criteria for updating
-		List<Object> toUpdate = connection.getSearchType().performSearch(visitor, executionContext) ;
-				//env.search(visitor, connection, executionContext);
+		Column keyCol = visitor.getPrimaryKeyCol();
+		
+		Map<Object, Object> toUpdate = null;
+		Set<Object> keys = (keyCol != null ? getKeys(visitor, keyCol) : null);
+		if (keys != null) {
+			// the criteria is only on the key, so the objects are read directly by key, 
+			// and like the search, only the objects of the cache class type are updated
+			toUpdate = getCacheClassObjects(connection.getAll(keys));
+		} else {
+			// Find all the objects that meet the criteria for updating, they're read 
+			// before any updates are made so that the search isn't affected by the changes
+			List<Object> found = readAll(connection.getSearchType().performSearch(visitor, executionContext));
+			
+			toUpdate = new LinkedHashMap<Object, Object>();
+			if (keyCol != null) {
+				for (Object entity : found) {
+					Object keyValue = getObjectValue(entity, ObjectUtil.getRecordName(keyCol), classRegistry.getReadScriptEngine(), clz);
+					toUpdate.put(convertKeyValue(keyValue, keyCol), entity);
+				}
+			}
+		}
 		
-		if (toUpdate == null || toUpdate.size() == 0){
+		if (toUpdate.isEmpty()){
 			LogManager.logTrace(LogConstants.CTX_CONNECTOR,
 					"InfinispanUpdateExecution.update: no objects found to update based on - " + update.toString()); //$NON-NLS-1$
 			return 0;
 		}
-		
-		Column keyCol = null;
-		
-		// if fk exist, its assumed its a container class
-		// don't want to use PK, cause it can exist on any table
-		ForeignKey fk = visitor.getForeignKey();
-		if (fk == null) {
-			keyCol = visitor.getPrimaryKeyCol();
-		} 		
 
 		List<SetClause> updateList = update.getChanges();
 		int cnt = 0;
-		if (keyCol != null) {
-			for (Object entity:toUpdate) {
+		for (Map.Entry<Object, Object> e : toUpdate.entrySet()) {
+			// the object read can be the instance in the cache, so the changes are applied to a copy, 
+			// which only replaces the object if it hasn't changed since it was read
+			Object entity = ObjectUtil.copyProperties(e.getValue(), newInstance(clz));
+			
+			for (SetClause sc:updateList) {
+				Column column = sc.getSymbol().getMetadataObject();
+				Object value = sc.getValue();
 				
-				Object keyValue = getObjectValue(entity, ObjectUtil.getRecordName(keyCol), classRegistry.getReadScriptEngine(), clz);
+				if ( keyCol.getName().equals(column.getName()) ) {
+					throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21009, new Object[] {keyCol.getName(),visitor.getTableName()}));						
+				}
 				
-				for (SetClause sc:updateList) {
-					Column column = sc.getSymbol().getMetadataObject();
-					Object value = sc.getValue();
-					
-					if ( keyCol.getName().equals(column.getName()) ) {
-						throw new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21009, new Object[] {keyCol.getName(),visitor.getTableName()}));						
-					}
-					
-					if (value instanceof Literal) {
-						Literal literalValue = (Literal) value;
-						value = literalValue.getValue();
+				if (value instanceof Literal) {
+					Literal literalValue = (Literal) value;
+					value = literalValue.getValue();
 
-					} 
-					
-					writeColumnData(entity, column, value, writeMethods);
-			
-				}
+				} 
 				
-				connection.update( convertKeyValue(keyValue, keyCol), entity);
-				++cnt;
+				writeColumnData(entity, column, value, writeMethods);
 			
 			}
 			
-		} 
+			if (connection.replace(e.getKey(), e.getValue(), entity)) {
+				++cnt;
+			}
+		}
 		return cnt;
 	}
+	
+	/*
+	 * Keys can overlap across the types in the cache, so only the objects of the cache class type are returned 
+	 */
+	private Map<Object, Object> getCacheClassObjects(Map<Object, Object> objects) throws TranslatorException {
+		Class<?> type = connection.getCacheClassType();
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>(objects.size());
+		for (Map.Entry<Object, Object> e : objects.entrySet()) {
+			if (type.isInstance(e.getValue())) {
+				result.put(e.getKey(), e.getValue());
+			}
+		}
+		return result;
+	}
+	
+	/*
+	 * Returns the keys, converted to the cache key type, when the criteria is only an equality or IN 
+	 * comparison on the key, otherwise null
+	 */
+	private Set<Object> getKeys(ObjectVisitor visitor, Column keyCol) throws TranslatorException {
+		List<Object> values = visitor.getKeyValues(ObjectUtil.getRecordName(keyCol));
+		if (values == null) {
+			return null;
+		}
+		
+		Set<Object> keys = new LinkedHashSet<Object>(values.size());
+		for (Object value : values) {
+			keys.add(convertKeyValue(value, keyCol));
+		}
+		return keys;
+	}
 
 	@Override
 	public void close() {
@@ -495,6 +739,27 @@ public class ObjectUpdateExecution extends ObjectBaseExecution implements Update
 		result = null;
 	}
 
+	/**
+	 * The consecutive inserts of root objects into the same table, 
+	 * with the parameter values of each row of a bulk insert
+	 */
+	private static class InsertBatch {
+		List<ObjectVisitor> visitors = new ArrayList<ObjectVisitor>();
+		List<List<?>> rows = new ArrayList<List<?>>();
+	}
+
+	private static List<Object> readAll(SearchCursor cursor) throws TranslatorException {
+		List<Object> results = new ArrayList<Object>();
+		try {
+			while (cursor.hasNext()) {
+				results.add(cursor.next());
+			}
+		} finally {
+			cursor.close();
+		}
+		return results;
+	}
+
 	private Object getObjectValue(Object value, String columnName, ObjectScriptEngine scriptEngine, Class<?> entityClass)
 			throws TranslatorException {
 //		Method m = null;
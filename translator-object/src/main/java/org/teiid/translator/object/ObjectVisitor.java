@@ -22,9 +22,14 @@
 package org.teiid.translator.object;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.teiid.core.util.StringUtil;
+import org.teiid.language.AggregateFunction;
 import org.teiid.language.AndOr;
 import org.teiid.language.BaseLanguageObject;
 import org.teiid.language.ColumnReference;
@@ -34,6 +39,7 @@ import org.teiid.language.Delete;
 import org.teiid.language.DerivedColumn;
 import org.teiid.language.Expression;
 import org.teiid.language.ExpressionValueSource;
+import org.teiid.language.GroupBy;
 import org.teiid.language.In;
 import org.teiid.language.Insert;
 import org.teiid.language.LanguageObject;
@@ -48,6 +54,7 @@ import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.metadata.Column;
 import org.teiid.metadata.ForeignKey;
+import org.teiid.metadata.Table;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.object.metadata.JavaBeanMetadataProcessor;
 import org.teiid.translator.object.util.ObjectUtil;
@@ -73,15 +80,26 @@ public class ObjectVisitor extends HierarchyVisitor {
 	// will be non-null only when a child table is being processed
 	private String rootTableName = null;
 	private int limit;
+	private int fetchSize = 0;
+	private int prefetchDepth = 0;
+	private Executor prefetchExecutor;
+	private int fullScanBatchSize = 0;
+	private String[] projectedAttributeNames = null;
+	private boolean projectionPushedDown = false;
 	private int numForeignKeys;
 	private ForeignKey fk = null;	
 	private String fkeyRefColumnName = null;
+	// the attributes to read the children through, starting from the root object
+	private String fkeyPath = null;
 	private Column pkkeyCol = null;
 	private BaseLanguageObject command=null;
 	private boolean isSelect = false;
 
 	protected Condition condition=null;
 	protected OrderBy orderBy=null;
+	protected GroupBy groupBy=null;
+	protected Condition having=null;
+	private boolean aggregate = false;
 	
 	private Insert insert;
 	private Update update;
@@ -100,9 +118,117 @@ public class ObjectVisitor extends HierarchyVisitor {
 		return this.orderBy;
 	}
 	
+	public GroupBy getGroupBy() {
+		return this.groupBy;
+	}
+	
+	public Condition getHavingCriteria() {
+		return this.having;
+	}
+	
+	/**
+	 * Returns true when the select is grouped or projects an aggregate function, and 
+	 * therefore the results are aggregate values instead of objects.
+	 * @return boolean
+	 */
+	public boolean isAggregateQuery() {
+		return this.aggregate;
+	}
+	
 	public int getLimit() {
 		return limit;
 	}
+	
+	/**
+	 * Returns the number of objects a search should return at most.  For a child table, the limit
+	 * is on the child rows and a root object can have any number of children, so the search isn't 
+	 * limited, and instead the execution stops reading the root objects when the limit is reached.
+	 * Likewise, the limit of an aggregate query is on the groups, so the search isn't limited when 
+	 * it returns the objects to be aggregated by the execution, instead of the aggregate values.
+	 * @return int search limit, zero or less indicates no limit
+	 */
+	public int getSearchLimit() {
+		if (this.rootTableName != null || (this.aggregate && !this.projectionPushedDown)) {
+			return 0;
+		}
+		return limit;
+	}
+	
+	/**
+	 * Returns the number of objects a search should read from the cache at one time.
+	 * @return int fetch size, zero or less indicates all the results are read at once
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+	
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	
+	/**
+	 * Returns the number of pages a search should read ahead of the page being consumed.
+	 * @return int prefetch depth, zero or less indicates pages are only read when needed
+	 */
+	public int getPrefetchDepth() {
+		return prefetchDepth;
+	}
+	
+	public void setPrefetchDepth(int prefetchDepth) {
+		this.prefetchDepth = prefetchDepth;
+	}
+	
+	/**
+	 * Returns the executor that reads the pages ahead, see {@link ObjectExecutionFactory#getPrefetchExecutor()}.
+	 * @return Executor, null indicates pages are only read when needed
+	 */
+	public Executor getPrefetchExecutor() {
+		return prefetchExecutor;
+	}
+	
+	public void setPrefetchExecutor(Executor prefetchExecutor) {
+		this.prefetchExecutor = prefetchExecutor;
+	}
+	
+	/**
+	 * Returns the number of objects a search should read per batch when it streams all the objects 
+	 * in the cache, instead of querying, because the query can't use an index or key.
+	 * @return int full scan batch size, zero or less indicates a full scan isn't used
+	 */
+	public int getFullScanBatchSize() {
+		return fullScanBatchSize;
+	}
+	
+	public void setFullScanBatchSize(int fullScanBatchSize) {
+		this.fullScanBatchSize = fullScanBatchSize;
+	}
+	
+	/**
+	 * Returns the names of the root object attributes that are selected, in projected column order,
+	 * when the search can return just those attribute values instead of the objects.
+	 * @return String[] attribute names, or <code>null</code> when the objects are required
+	 */
+	public String[] getProjectedAttributeNames() {
+		return projectedAttributeNames;
+	}
+	
+	public void setProjectedAttributeNames(String[] projectedAttributeNames) {
+		this.projectedAttributeNames = projectedAttributeNames;
+	}
+	
+	/**
+	 * Returns true when the search applied the {@link #getProjectedAttributeNames() projection}, or 
+	 * calculated the aggregate values of an aggregate query, and therefore each search result is an Object[] 
+	 * of the selected values.
+	 * @return boolean
+	 */
+	public boolean isProjectionPushedDown() {
+		return projectionPushedDown;
+	}
+	
+	public void setProjectionPushedDown(boolean projectionPushedDown) {
+		this.projectionPushedDown = projectionPushedDown;
+	}
 
 	public List<TranslatorException> getExceptions() {
 		return exceptions;
@@ -158,6 +284,24 @@ public class ObjectVisitor extends HierarchyVisitor {
 		return this.fkeyRefColumnName;
 	}
 	
+	/**
+	 * Returns the attributes, separated by a period, that are read to get from the root object to 
+	 * the objects of a child table.  A child table's foreign key can refer to another child table, 
+	 * so the path has an attribute for each level that the children are nested within.
+	 * @return String path, or <code>null</code> when the table isn't a child table
+	 */
+	public String getForeignKeyPath() {
+		return this.fkeyPath;
+	}
+	
+	/**
+	 * Returns true when the table is a child table of another child table.
+	 * @return boolean
+	 */
+	public boolean isNestedChildTable() {
+		return this.fkeyPath != null && this.fkeyPath.indexOf('.') > 0;
+	}
+	
 	public boolean isSelectCommand(){
 		return this.isSelect;
 	}
@@ -199,7 +343,7 @@ public class ObjectVisitor extends HierarchyVisitor {
 					this.addException(new TranslatorException(ObjectPlugin.Util.gs(ObjectPlugin.Event.TEIID21006, new Object[] { ( this.isSelect ? "Select" : "Update"), obj.getName()})));
 				}
 				
-				rootTableName = fk.getReferenceKey().getParent().getName();
+				setForeignKeyPath(obj);
 			}
 			
 			
@@ -240,8 +384,24 @@ public class ObjectVisitor extends HierarchyVisitor {
 	public void visit(Select obj) {
 		this.condition = obj.getWhere();
 		this.orderBy = obj.getOrderBy();
+		this.groupBy = obj.getGroupBy();
+		this.having = obj.getHaving();
 		this.isSelect = true;
-		super.visit(obj);
+		
+		this.aggregate = (this.groupBy != null);
+		for (DerivedColumn dc : obj.getDerivedColumns()) {
+			if (dc.getExpression() instanceof AggregateFunction) {
+				this.aggregate = true;
+			}
+		}
+
+		// the HAVING criteria compares aggregate values, so it isn't visited
+		// for the criteria values that are used when searching by key
+		visitNodes(obj.getDerivedColumns());
+		visitNodes(obj.getFrom());
+		visitNode(obj.getWhere());
+		visitNode(obj.getOrderBy());
+		visitNode(obj.getLimit());
 	}
 	
 	/**
@@ -292,6 +452,59 @@ public class ObjectVisitor extends HierarchyVisitor {
 		return values;
 	}
 	
+	/**
+	 * Returns the key values when the WHERE criteria is only an equality or IN comparison 
+	 * on the key attribute of the root object, so the objects can be read directly by key
+	 * instead of being searched for.  For a child table, the comparison is on the foreign key 
+	 * that refers to the root object, and the rows are read from the root objects that are found.
+	 * @param keyAttributeName is the name of the key attribute
+	 * @return List of the literal key values, or <code>null</code> when the criteria has any other form
+	 */
+	public List<Object> getKeyValues(String keyAttributeName) {
+		if (keyAttributeName == null || this.condition == null || this.aggregate) {
+			return null;
+		}
+		
+		Expression lhs = null;
+		List<Expression> rhs = null;
+		if (this.condition instanceof Comparison) {
+			Comparison c = (Comparison) this.condition;
+			if (c.getOperator() != Comparison.Operator.EQ) {
+				return null;
+			}
+			lhs = c.getLeftExpression();
+			rhs = Collections.singletonList(c.getRightExpression());
+			if (lhs instanceof Literal) {
+				lhs = c.getRightExpression();
+				rhs = Collections.singletonList(c.getLeftExpression());
+			}
+		} else if (this.condition instanceof In) {
+			In in = (In) this.condition;
+			if (in.isNegated()) {
+				return null;
+			}
+			lhs = in.getLeftExpression();
+			rhs = in.getRightExpressions();
+		} else {
+			return null;
+		}
+		
+		if (!(lhs instanceof ColumnReference) || ((ColumnReference) lhs).getMetadataObject() == null
+				|| !keyAttributeName.equals(ObjectUtil.getRecordName(((ColumnReference) lhs).getMetadataObject()))
+				|| (this.rootTableName != null && !this.fk.getColumns().contains(((ColumnReference) lhs).getMetadataObject()))) {
+			return null;
+		}
+		
+		List<Object> keys = new ArrayList<Object>(rhs.size());
+		for (Expression e : rhs) {
+			if (!(e instanceof Literal) || ((Literal) e).getValue() == null) {
+				return null;
+			}
+			keys.add(((Literal) e).getValue());
+		}
+		return keys;
+	}
+	
 
 	@Override
     public void visit(AndOr obj) {
@@ -344,8 +557,8 @@ public class ObjectVisitor extends HierarchyVisitor {
 	@Override
 	public void visit(In obj) {
 		super.visit(obj);
+		// NOT IN is residual criteria, see CriteriaPlanner, so its values aren't collected  
 		if (obj.isNegated()) {
-			this.addException(new TranslatorException("ObjectQueryVisitor: Not In criteria is not supported"));
 			return;
 		}
 
@@ -372,6 +585,28 @@ public class ObjectVisitor extends HierarchyVisitor {
 	
 	}	
 	
+	/*
+	 * Follows the foreign keys up to the root table, where the referenced key of the 
+	 * table at each level is a foreign key to the level above.  
+	 */
+	private void setForeignKeyPath(NamedTable obj) {
+		StringBuilder path = new StringBuilder(getForeignKeyColumnName(obj, fk));
+		Table parent = fk.getReferenceKey().getParent();
+		Set<Table> visited = new HashSet<Table>();
+		visited.add(obj.getMetadataObject());
+		while (!parent.getForeignKeys().isEmpty() && visited.add(parent)) {
+			ForeignKey parentKey = parent.getForeignKeys().get(0);
+			path.insert(0, '.').insert(0, getForeignKeyColumnName(obj, parentKey));
+			String refColumnName = getForeignKeyRefcolumn(obj, parentKey);
+			if (refColumnName != null) {
+				fkeyRefColumnName = refColumnName;
+			}
+			parent = parentKey.getReferenceKey().getParent();
+		}
+		rootTableName = parent.getName();
+		fkeyPath = path.toString();
+	}
+	
 	protected String getForeignKeyRefcolumn(NamedTable table, ForeignKey fk)  {
 
 		String fkeyColNIS = null;
@@ -420,6 +655,9 @@ public class ObjectVisitor extends HierarchyVisitor {
 
 		condition=null;
 		orderBy=null;
+		groupBy=null;
+		having=null;
+		projectedAttributeNames = null;
 
 	}
 
@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.teiid.translator.TranslatorException;
+
+/**
+ * PagedSearchCursor reads the search results a page at a time, so that a large result
+ * is never returned by the cache in one response.  
+ * <p>
+ * When a prefetch depth and executor are specified, the pages are read by a background thread, which
+ * stays up to prefetch depth pages ahead of the page being consumed.  Otherwise, or when the executor
+ * has no thread available, the next page is only requested once the current page has been consumed.  
+ * Closing the cursor stops the reading ahead once the page being read, if any, has been read.
+ * <p>
+ * When the page size is zero or less, the results are read with a single request.
+ * When a limit is specified, no more than the limit will be requested in total.
+ */
+public abstract class PagedSearchCursor extends IteratorSearchCursor {
+	
+	private static final List<Object> END_OF_PAGES = new ArrayList<Object>(0);
+	
+	// how often a blocked reader or prefetch checks if the cursor was closed
+	private static final long CLOSE_CHECK_MILLIS = 100;
+	
+	private int pageSize;
+	private int prefetchDepth;
+	private Executor executor;
+	private int limit;
+	private long offset = 0;
+	private boolean lastPage = false;
+	
+	private volatile boolean closed = false;
+	private BlockingQueue<List<?>> pages;
+	private volatile TranslatorException prefetchError;
+
+	/**
+	 * @param pageSize is the maximum number of objects to request per page
+	 * @param limit is the maximum number of objects to return, zero or less indicates no limit
+	 */
+	public PagedSearchCursor(int pageSize, int limit) {
+		this(pageSize, 0, null, limit);
+	}
+	
+	/**
+	 * @param pageSize is the maximum number of objects to request per page
+	 * @param prefetchDepth is the number of pages to read ahead on a background thread, zero or less disables prefetching
+	 * @param executor runs the background thread, see {@link ObjectExecutionFactory#getPrefetchExecutor()}, null disables prefetching
+	 * @param limit is the maximum number of objects to return, zero or less indicates no limit
+	 */
+	public PagedSearchCursor(int pageSize, int prefetchDepth, Executor executor, int limit) {
+		super();
+		this.pageSize = pageSize;
+		this.prefetchDepth = (executor == null ? 0 : prefetchDepth);
+		this.executor = executor;
+		this.limit = limit;
+	}
+
+	/**
+	 * Called to read the page of results starting at <code>startOffset</code>.  When prefetching,
+	 * this will be called from the background thread.
+	 * @param startOffset is the number of objects that have already been read
+	 * @param maxResults is the maximum number of objects to return, zero or less indicates all remaining objects
+	 * @return List of objects, an empty or <code>null</code> list indicates there are no more results
+	 * @throws TranslatorException
+	 */
+	protected abstract List<?> fetchPage(long startOffset, int maxResults) throws TranslatorException;
+
+	@Override
+	protected Iterator<?> nextIterator() throws TranslatorException {
+		if (pageSize <= 0 || prefetchDepth <= 0) {
+			List<?> page = readPage();
+			return (page == null ? null : page.iterator());
+		}
+		
+		if (pages == null && !startPrefetch()) {
+			// no thread is available, so the pages are read when needed
+			prefetchDepth = 0;
+			return nextIterator();
+		}
+		
+		List<?> page = null;
+		try {
+			// the cursor can be closed by another thread while waiting on the page
+			while ((page = pages.poll(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				if (closed) {
+					return null;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		}
+		
+		if (page == END_OF_PAGES) {
+			if (prefetchError != null) {
+				throw prefetchError;
+			}
+			return null;
+		}
+		return page.iterator();
+	}
+	
+	private List<?> readPage() throws TranslatorException {
+		if (lastPage) {
+			return null;
+		}
+		
+		int maxResults = pageSize;
+		if (limit > 0) {
+			long remaining = limit - offset;
+			if (remaining <= 0) {
+				return null;
+			}
+			if (maxResults <= 0 || remaining < maxResults) {
+				maxResults = (int) remaining;
+			}
+		}
+
+		List<?> page = fetchPage(offset, maxResults);
+		if (page == null || page.isEmpty()) {
+			lastPage = true;
+			return null;
+		}
+		
+		// a short page indicates the end of the results
+		if (maxResults <= 0 || page.size() < maxResults) {
+			lastPage = true;
+		}
+		offset += page.size();
+		return page;
+	}
+	
+	/*
+	 * Returns false when the executor has no thread available
+	 */
+	private boolean startPrefetch() {
+		final BlockingQueue<List<?>> queue = new ArrayBlockingQueue<List<?>>(prefetchDepth);
+		
+		// the page reads may need to load the cache classes
+		final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					Thread current = Thread.currentThread();
+					ClassLoader previous = current.getContextClassLoader();
+					current.setContextClassLoader(cl);
+					try {
+						List<?> page = readPage();
+						// the page being read is completed, and then the prefetch stops if the cursor was closed 
+						while (page != null && offer(queue, page)) {
+							page = readPage();
+						}
+					} catch (TranslatorException e) {
+						prefetchError = e;
+					} catch (RuntimeException e) {
+						prefetchError = new TranslatorException(e);
+					} finally {
+						current.setContextClassLoader(previous);
+						offer(queue, END_OF_PAGES);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+		pages = queue;
+		return true;
+	}
+	
+	/*
+	 * Waits while prefetchDepth pages are waiting to be consumed, returns false when the cursor is closed 
+	 */
+	private boolean offer(BlockingQueue<List<?>> queue, List<?> page) {
+		try {
+			while (!closed) {
+				if (queue.offer(page, CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			// the thread is being stopped
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		// the prefetch, and a reader waiting on the next page, stop once they see the cursor is closed 
+		closed = true;
+	}
+}
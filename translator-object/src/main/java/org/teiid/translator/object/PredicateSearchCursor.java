@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import org.teiid.translator.TranslatorException;
+
+/**
+ * PredicateSearchCursor returns the objects of a search that match the {@link ObjectPredicate} 
+ * of the residual criteria, see {@link CriteriaPlanner}, until the limit is reached.  The search 
+ * can't be limited, because the objects that don't match aren't returned.
+ */
+public class PredicateSearchCursor implements SearchCursor {
+	
+	private SearchCursor cursor;
+	private ObjectPredicate predicate;
+	private int limit;
+	private int count = 0;
+	private Object nextObject = null;
+	
+	/**
+	 * @param cursor is the search to be filtered
+	 * @param predicate is the criteria the objects have to match
+	 * @param limit is the maximum number of objects to return, zero or less indicates no limit
+	 */
+	public PredicateSearchCursor(SearchCursor cursor, ObjectPredicate predicate, int limit) {
+		this.cursor = cursor;
+		this.predicate = predicate;
+		this.limit = limit;
+	}
+	
+	/**
+	 * @return the cursor filtered by the predicate, or the cursor when there's no predicate
+	 */
+	public static SearchCursor filter(SearchCursor cursor, ObjectPredicate predicate, int limit) {
+		if (predicate == null) {
+			return cursor;
+		}
+		return new PredicateSearchCursor(cursor, predicate, limit);
+	}
+
+	@Override
+	public boolean hasNext() throws TranslatorException {
+		while (nextObject == null) {
+			if ((limit > 0 && count >= limit) || !cursor.hasNext()) {
+				return false;
+			}
+			Object o = cursor.next();
+			if (predicate.matches(o)) {
+				nextObject = o;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Object next() throws TranslatorException {
+		if (!hasNext()) {
+			return null;
+		}
+		Object o = nextObject;
+		nextObject = null;
+		count++;
+		return o;
+	}
+
+	@Override
+	public void close() {
+		nextObject = null;
+		cursor.close();
+	}
+
+}
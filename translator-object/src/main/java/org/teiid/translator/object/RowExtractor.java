@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import javax.script.ScriptException;
+
+import org.teiid.core.types.TransformationException;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.util.ObjectUtil;
+
+/**
+ * RowExtractor reads the selected attributes of an object into a row.  It is specific to the 
+ * class of the object and the selected columns, so the getters are resolved to {@link MethodHandle}s
+ * and the Teiid types of the columns are resolved once, when the extractor is created.  
+ * The extractors are cached by the {@link ClassRegistry}, so recurring queries reuse them.
+ */
+public final class RowExtractor {
+	
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	private final Class<?> clazz;
+	// a null getter is for the object itself
+	private final MethodHandle[] getters;
+	private final ValueConverter[] converters;
+	
+	private RowExtractor(Class<?> clazz, MethodHandle[] getters, ValueConverter[] converters) {
+		this.clazz = clazz;
+		this.getters = getters;
+		this.converters = converters;
+	}
+	
+	/**
+	 * @param registry 
+	 * @param clazz of the objects to be read
+	 * @param attributeNames of the selected columns, where <code>this</code> selects the object itself
+	 * @param types are the Teiid types of the selected columns
+	 * @return RowExtractor, or <code>null</code> when an attribute isn't read by a getter of the class
+	 * @throws TranslatorException
+	 */
+	static RowExtractor create(ClassRegistry registry, Class<?> clazz, String[] attributeNames, Class<?>[] types) throws TranslatorException {
+		Map<String, Method> methods = null;
+		try {
+			methods = registry.getReadScriptEngine().getMethodMap(clazz);
+		} catch (ScriptException e) {
+			throw new TranslatorException(e);
+		}
+		
+		MethodHandle[] getters = new MethodHandle[attributeNames.length];
+		ValueConverter[] converters = new ValueConverter[attributeNames.length];
+		for (int i = 0; i < attributeNames.length; i++) {
+			if (attributeNames[i].equalsIgnoreCase("this")) { //$NON-NLS-1$
+				continue;
+			}
+			Method m = ObjectUtil.findMethod(methods, attributeNames[i]);
+			if (m == null) {
+				return null;
+			}
+			try {
+				getters[i] = MethodHandles.publicLookup().unreflect(m).asType(GETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				return null;
+			}
+			converters[i] = registry.getObjectDataTypeManager().getFromObjectTypeConverter(m.getReturnType(), types[i]);
+		}
+		return new RowExtractor(clazz, getters, converters);
+	}
+	
+	public Class<?> getObjectClass() {
+		return clazz;
+	}
+	
+	/**
+	 * Sets the selected attribute values of the object in the row, converted to the Teiid types
+	 * @param o is the object, which must be of the class the extractor was created for
+	 * @param row has an element for each selected column
+	 * @throws TranslatorException
+	 */
+	public void extract(Object o, Object[] row) throws TranslatorException {
+		for (int i = 0; i < getters.length; i++) {
+			if (getters[i] == null) {
+				row[i] = o;
+				continue;
+			}
+			Object v = null;
+			try {
+				v = getters[i].invokeExact(o);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new TranslatorException(t);
+			}
+			try {
+				row[i] = converters[i].convert(v);
+			} catch (TransformationException e) {
+				throw new TranslatorException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import org.teiid.translator.TranslatorException;
+
+/**
+ * A SearchCursor is returned by a {@link SearchType} so that the objects satisfying
+ * a search can be consumed one at a time, instead of the whole result being
+ * materialized before the first row is returned.
+ * <p>
+ * Any cache resources needed by the cursor are bound when the search is performed,
+ * so a cursor can be read after the execution has reset its staging target.  
+ * The cursor must be closed once the caller is done with it.
+ * 
+ */
+public interface SearchCursor {
+
+	/**
+	 * Call to determine if there is another object to be returned
+	 * @return boolean true if {@link #next()} will return an object
+	 * @throws TranslatorException
+	 */
+	boolean hasNext() throws TranslatorException;
+
+	/**
+	 * Call to return the next object in the search results
+	 * @return Object 
+	 * @throws TranslatorException
+	 */
+	Object next() throws TranslatorException;
+
+	/**
+	 * Called to release the resources held by the cursor.
+	 */
+	void close();
+
+}
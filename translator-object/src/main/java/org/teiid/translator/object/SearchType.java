@@ -21,8 +21,6 @@
  */
 package org.teiid.translator.object;
 
-import java.util.List;
-
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 
@@ -43,12 +41,14 @@ public interface SearchType {
 	Object performKeySearch(String columnNameInSource, Object value,  ExecutionContext executionContext) throws TranslatorException ;
 
 	/**
-	 * Perform an update
+	 * Perform a search based on the criteria captured by the visitor.  The objects
+	 * are returned by the {@link SearchCursor} as they are read, the caller is responsible for
+	 * closing the cursor.
 	 * @param visitor
 	 * @param executionContext 
-	 * @return List of Objects impacted by the update
+	 * @return SearchCursor over the objects that satisfy the search
 	 * @throws TranslatorException
 	 */
-	List<Object> performSearch(ObjectVisitor visitor,  ExecutionContext executionContext) throws TranslatorException;	
+	SearchCursor performSearch(ObjectVisitor visitor,  ExecutionContext executionContext) throws TranslatorException;	
 		
 }
\ No newline at end of file
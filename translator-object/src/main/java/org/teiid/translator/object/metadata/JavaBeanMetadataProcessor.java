@@ -63,6 +63,14 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
     @ExtensionMetadataProperty(applicable=Table.class, datatype=String.class, display="Primary Table", description="Indicates the primary table that this staging table is used for", required=true)
     public static final String PRIMARY_TABLE_PROPERTY= OBJECT_URI+PRIMARY_TABLE; //$NON-NLS-1$
 
+	public static final String INDEX = "INDEX"; //$NON-NLS-1$
+	public static final String HASH_INDEX = "HASH"; //$NON-NLS-1$
+	public static final String SORTED_INDEX = "SORTED"; //$NON-NLS-1$
+	public static final String NO_INDEX = "NONE"; //$NON-NLS-1$
+	
+    @ExtensionMetadataProperty(applicable=Column.class, datatype=String.class, display="Index", description="Indicates the attribute is indexed by a map cache, HASH for equality or SORTED for equality and ranges.  NONE indicates the attribute isn't indexed, so its criteria is evaluated against the objects")
+    public static final String INDEX_PROPERTY= OBJECT_URI+INDEX; //$NON-NLS-1$
+
 	public static final String GET = "get"; //$NON-NLS-1$
 	public static final String SET = "set"; //$NON-NLS-1$
 	public static final String IS = "is"; //$NON-NLS-1$
@@ -233,10 +241,9 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 						
 					if (regClasses.contains(entry.getValue().getReturnType())) {
 						
-						// only if pkfield is defined can children be defined
+						// only if pkfield is defined can children be defined, and a child table can have its own children
 						if (pkField != null) {
-							Table childTable = createChildTable(mf, entry.getValue().getReturnType(), pkField, updatable, conn);
-							createRelationShip(mf, childTable, (Method) o, this.rootTable, this.pkMethod, conn);
+							createChildTable(mf, entry.getValue().getReturnType(), pkField, updatable, conn, table, (Method) o);
 						}
 
 					} else {
@@ -259,6 +266,7 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 			}
 	
 			SearchType st = SearchType.Unsearchable;
+			String index = null;
 			
 			NullType nt = NullType.Nullable;
 
@@ -266,6 +274,7 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 			if (useAnnotations) {
 				if (isMethodSearchable(entity,m)) {
 					st = SearchType.Searchable;
+					index = (isMethodSortable(entity, m) ? SORTED_INDEX : HASH_INDEX);
 					
 					if (isValueRequired(m)) {
 						nt =NullType.No_Nulls;
@@ -275,6 +284,7 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 					Field f = findClassField(entity, m);
 					if (isFieldSearchable(entity,f)) {
 						st = SearchType.Searchable;
+						index = (isFieldSortable(entity, f) ? SORTED_INDEX : HASH_INDEX);
 						if (isValueRequired(f)) {
 							nt =NullType.No_Nulls;			
 						}
@@ -283,13 +293,18 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 				}					
 				
 			}
-			addColumn(mf, m.getReturnType(), entry.getValue(), entry.getValue(), st, table, true, nt, columnUpdatable, conn);			
+			Column c = addColumn(mf, m.getReturnType(), entry.getValue(), entry.getValue(), st, table, true, nt, columnUpdatable, conn);			
+			if (index != null) {
+				c.setProperty(INDEX_PROPERTY, index);
+			}
 		}
 	}
 	
 	// this should not be performed when the data source is being used for staging.
 	// children tables are not supported for materializaton
-	private Table createChildTable(MetadataFactory mf, Class<?> entity,  String pkField, boolean updatable, ObjectConnection conn ) throws TranslatorException {
+	// the foreign key of a child table refers to the parent table, which is either the root table or 
+	// another child table, so that the children are read through each level of the parent objects.
+	private Table createChildTable(MetadataFactory mf, Class<?> entity,  String pkField, boolean updatable, ObjectConnection conn, Table parentTable, Method parentChildMethod) throws TranslatorException {
 		Map<String, Method> methods=null;
 		Map<String, Method> writeMethods=null;
 		try {
@@ -302,9 +317,18 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 			throw new MetadataException(e);
 		}		
 
-		Table childTable = createTable(mf, entity, updatable, false);
+		// the table was already created for another reference to the class
+		Table childTable = doesTableExist(mf, getTableName(entity), false);
+		if (childTable != null) {
+			return childTable;
+		}
+		
+		// the objects of a nested child table can only be read
+		boolean childUpdatable = updatable && parentTable == this.rootTable;
+		childTable = createTable(mf, entity, childUpdatable, false);
+		createRelationShip(mf, childTable, parentChildMethod, parentTable, this.pkMethod, conn);
 
-		addTableContents(mf, childTable, entity, pkField, conn, false, updatable, methods, writeMethods);
+		addTableContents(mf, childTable, entity, pkField, conn, false, childUpdatable, methods, writeMethods);
 	
 		return childTable;
 
@@ -355,6 +379,18 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 		return false;
 	}
 	
+	/**
+	 * A searchable attribute that is also sortable can be used for range comparisons,
+	 * and therefore, is given a sorted index.
+	 */
+	protected boolean isMethodSortable(Class<?> entity, Method m) {
+		return (m.getAnnotation(org.hibernate.search.annotations.SortableField.class) != null);
+	}
+	
+	protected boolean isFieldSortable(Class<?> entity, Field f) {
+		return (f != null && f.getAnnotation(org.hibernate.search.annotations.SortableField.class) != null);
+	}
+	
 	private Field findClassField(Class<?> clzz, Method m) {
 		final String ml = m.getName().toLowerCase();
 		Field[] fields = clzz.getDeclaredFields();
@@ -421,13 +457,13 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
 		return c;
 	}
 	
-	private void createRelationShip(MetadataFactory mf, Table childTable, Method parentChildMethod,  Table rootTable, Method pkMethod, ObjectConnection conn)  {
+	private void createRelationShip(MetadataFactory mf, Table childTable, Method parentChildMethod,  Table parentTable, Method pkMethod, ObjectConnection conn)  {
 		
 		if (pkMethod != null) {
 			// use the same parent table primary ke column name in the foreign key tables
-			String fkName = "FK_" + rootTable.getName().toUpperCase();
+			String fkName = "FK_" + parentTable.getName().toUpperCase();
 			
-			String methodName = rootTable.getPrimaryKey().getColumns().get(0).getName();
+			String methodName = parentTable.getPrimaryKey().getColumns().get(0).getName();
 			List<String> keyColumns = new ArrayList<String>();
 			keyColumns.add(methodName);
 			List<String> referencedKeyColumns = new ArrayList<String>();
@@ -436,7 +472,7 @@ public class JavaBeanMetadataProcessor implements MetadataProcessor<ObjectConnec
     		addColumn(mf, pkMethod.getReturnType(), methodName, methodName, SearchType.Searchable, childTable,  false, NullType.No_Nulls, true, conn);
     		addPrimaryKey(mf, pkMethod.getName(), childTable);
     		
-    		ForeignKey fk = mf.addForiegnKey(fkName, keyColumns, referencedKeyColumns, rootTable.getName(), childTable);
+    		ForeignKey fk = mf.addForiegnKey(fkName, keyColumns, referencedKeyColumns, parentTable.getName(), childTable);
 			
 			fk.setNameInSource(getNameFromMethodName (parentChildMethod.getName()) );
 
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object.simpleMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.script.ScriptException;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.ClassRegistry;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.ObjectScriptEngine.ObjectCompiledScript;
+
+/**
+ * MapCacheIndex is a secondary index on an attribute of the objects in a map cache, that
+ * maps each attribute value to the keys of the objects that have that value.  A hash index can 
+ * only be used for equality, where as a sorted index can also be used for range comparisons.  
+ * <p>
+ * The attribute values are indexed as the Teiid runtime type of the column, so that the
+ * literal values of the query can be used to search the index.  <code>null</code> values aren't indexed, 
+ * because a comparison to null is never true.
+ * <p>
+ * The index is kept in sync by the {@link SimpleMapCacheConnection} when objects are added, 
+ * updated or removed using any of the connections to the cache map.
+ */
+public class MapCacheIndex {
+	
+	private String attributeName;
+	private ObjectCompiledScript accessor;
+	private ValueConverter converter;
+	
+	private Map<Object, Set<Object>> index;
+	// the value that each key was indexed by, because an updated object may have been changed in place 
+	private Map<Object, Object> indexedValues = new HashMap<Object, Object>();
+	
+	/**
+	 * @param attributeName is the name of the attribute that's indexed
+	 * @param runtimeType is the Teiid runtime type that the values are indexed as
+	 * @param sorted is true when the index is to be used for range comparisons
+	 * @param cacheClassType is the class of the objects in the cache, whose declared attribute type the values are converted from
+	 * @param registry 
+	 * @throws TranslatorException
+	 */
+	public MapCacheIndex(String attributeName, String runtimeType, boolean sorted, Class<?> cacheClassType, ClassRegistry registry) throws TranslatorException {
+		this.attributeName = attributeName;
+		this.converter = registry.getObjectDataTypeManager().getFromObjectTypeConverter(registry.getAttributeType(cacheClassType, attributeName), 
+				DataTypeManager.getDataTypeClass(runtimeType));
+		
+		// equals on a BigDecimal depends upon the scale, so a hash lookup could miss an equal value
+		if (sorted || DataTypeManager.DefaultDataTypes.BIG_DECIMAL.equals(runtimeType)) {
+			this.index = new TreeMap<Object, Set<Object>>();
+		} else {
+			this.index = new HashMap<Object, Set<Object>>();
+		}
+		
+		try {
+			this.accessor = registry.getReadScriptEngine().compile(ClassRegistry.OBJECT_NAME + "." + attributeName); //$NON-NLS-1$
+		} catch (ScriptException e) {
+			throw new TranslatorException(e);
+		}
+	}
+	
+	public String getAttributeName() {
+		return attributeName;
+	}
+	
+	public boolean isSorted() {
+		return (index instanceof NavigableMap);
+	}
+	
+	/**
+	 * Indexes all the objects in the cache
+	 * @param cache
+	 * @throws TranslatorException
+	 */
+	public synchronized void load(Map<Object, Object> cache) throws TranslatorException {
+		clear();
+		for (Map.Entry<Object, Object> entry : cache.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	/**
+	 * Indexes the object, replacing the value that the key was previously indexed by 
+	 * @param key
+	 * @param object
+	 * @throws TranslatorException
+	 */
+	public synchronized void put(Object key, Object object) throws TranslatorException {
+		remove(key);
+		
+		Object value = getValue(object);
+		if (value == null) {
+			return;
+		}
+		Set<Object> keys = index.get(value);
+		if (keys == null) {
+			keys = new LinkedHashSet<Object>(2);
+			index.put(value, keys);
+		}
+		keys.add(key);
+		indexedValues.put(key, value);
+	}
+	
+	public synchronized void remove(Object key) {
+		Object value = indexedValues.remove(key);
+		if (value == null) {
+			return;
+		}
+		Set<Object> keys = index.get(value);
+		if (keys != null) {
+			keys.remove(key);
+			if (keys.isEmpty()) {
+				index.remove(value);
+			}
+		}
+	}
+	
+	public synchronized void clear() {
+		index.clear();
+		indexedValues.clear();
+	}
+	
+	/**
+	 * @param values to find
+	 * @return Set of keys for the objects that have any of the values
+	 */
+	public synchronized Set<Object> getKeys(Collection<?> values) {
+		Set<Object> result = new LinkedHashSet<Object>();
+		for (Object v : values) {
+			if (v == null) {
+				continue;
+			}
+			Set<Object> keys = index.get(v);
+			if (keys != null) {
+				result.addAll(keys);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Can only be called for a sorted index.
+	 * @param lower bound, or <code>null</code> when there isn't a lower bound
+	 * @param lowerInclusive
+	 * @param upper bound, or <code>null</code> when there isn't an upper bound
+	 * @param upperInclusive
+	 * @return Set of keys for the objects that have a value in the range
+	 */
+	public synchronized Set<Object> getKeys(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+		NavigableMap<Object, Set<Object>> range = (NavigableMap<Object, Set<Object>>) index;
+		if (lower != null) {
+			range = range.tailMap(lower, lowerInclusive);
+		}
+		if (upper != null) {
+			range = range.headMap(upper, upperInclusive);
+		}
+		Set<Object> result = new LinkedHashSet<Object>();
+		for (Set<Object> keys : range.values()) {
+			result.addAll(keys);
+		}
+		return result;
+	}
+	
+	private Object getValue(Object object) throws TranslatorException {
+		if (object == null) {
+			return null;
+		}
+		try {
+			return converter.convert(accessor.eval(object));
+		} catch (ScriptException e) {
+			throw new TranslatorException(e);
+		} catch (TransformationException e) {
+			throw new TranslatorException(e);
+		}
+	}
+}
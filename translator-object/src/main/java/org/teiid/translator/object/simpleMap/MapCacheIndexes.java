@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object.simpleMap;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MapCacheIndexes holds the secondary indexes of each map cache, see {@link MapCacheIndex}.  The indexes 
+ * are kept by the identity of the map, so that all the connections to the same map share them, and the changes 
+ * made using one connection are seen by the queries of the others.  The maps are weakly referenced, so the 
+ * indexes of a map are discarded once the map isn't used.
+ */
+final class MapCacheIndexes {
+	
+	private static final Map<MapReference, Map<String, MapCacheIndex>> INDEXES = new HashMap<MapReference, Map<String, MapCacheIndex>>();
+	private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+	
+	private MapCacheIndexes() {
+	}
+	
+	/**
+	 * @param cache the map that's indexed
+	 * @param create is true when the indexes are to be created when the map doesn't have any yet
+	 * @return Map of the indexes of the map, by index name, which is to be synchronized on when used, 
+	 * or <code>null</code> when the map doesn't have any indexes and they aren't created
+	 */
+	static synchronized Map<String, MapCacheIndex> getIndexes(Map<Object, Object> cache, boolean create) {
+		expunge();
+		Map<String, MapCacheIndex> indexes = INDEXES.get(new MapReference(cache, null));
+		if (indexes == null && create) {
+			indexes = new HashMap<String, MapCacheIndex>();
+			INDEXES.put(new MapReference(cache, QUEUE), indexes);
+		}
+		return indexes;
+	}
+	
+	/**
+	 * Discards the indexes of the map, so they're rebuilt when next used
+	 * @param cache
+	 */
+	static synchronized void removeIndexes(Map<Object, Object> cache) {
+		INDEXES.remove(new MapReference(cache, null));
+	}
+	
+	private static void expunge() {
+		Reference<?> ref = QUEUE.poll();
+		while (ref != null) {
+			INDEXES.remove(ref);
+			ref = QUEUE.poll();
+		}
+	}
+	
+	/**
+	 * A weak reference that's equal to the other references to the same map 
+	 */
+	private static final class MapReference extends WeakReference<Object> {
+		private final int hash;
+		
+		MapReference(Object map, ReferenceQueue<Object> queue) {
+			super(map, queue);
+			this.hash = System.identityHashCode(map);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof MapReference)) {
+				return false;
+			}
+			Object map = get();
+			return map != null && map == ((MapReference) obj).get();
+		}
+	}
+}
@@ -23,20 +23,41 @@
 package org.teiid.translator.object.simpleMap;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+import org.teiid.language.ColumnReference;
+import org.teiid.language.Comparison;
+import org.teiid.language.Condition;
+import org.teiid.language.Expression;
+import org.teiid.language.In;
+import org.teiid.language.LanguageUtil;
+import org.teiid.language.Literal;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.Column;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.object.ObjectConnection;
+import org.teiid.translator.object.ObjectPredicate;
 import org.teiid.translator.object.ObjectVisitor;
+import org.teiid.translator.object.SearchCursor;
 import org.teiid.translator.object.SearchType;
+import org.teiid.translator.object.metadata.JavaBeanMetadataProcessor;
+import org.teiid.translator.object.util.ObjectUtil;
 
 /**
  * SearchByKey is simple search logic that enables querying the cache by
- * the key, using EQUI and IN clauses on the SELECT statement.
+ * the key, using EQUI and IN clauses on the SELECT statement.  Any other criteria
+ * is evaluated against the objects in the cache using an {@link ObjectPredicate}, after
+ * using a {@link MapCacheIndex} to narrow the objects when the criteria is on an indexed column.
+ * <p>
+ * When all the objects are searched, the values of a map that isn't a {@link ConcurrentMap} are copied 
+ * when the search is performed, so the map can be changed while the rows are read.
  */
 public  class SearchByKey implements SearchType  {
 	private ObjectConnection conn;
@@ -56,7 +77,7 @@ public  class SearchByKey implements SearchType  {
 	}
 
 	@Override
-	public List<Object> performSearch(ObjectVisitor visitor,
+	public SearchCursor performSearch(ObjectVisitor visitor,
 		  ExecutionContext executionContext) throws TranslatorException  {
 		
 		try {
@@ -67,51 +88,243 @@ public  class SearchByKey implements SearchType  {
 		
 	}
 	
-	private List<Object> performSearch(ObjectVisitor visitor) throws TranslatorException {
+	@SuppressWarnings("unchecked")
+	private SearchCursor performSearch(ObjectVisitor visitor) throws TranslatorException {
 
 		LogManager.logTrace(LogConstants.CTX_CONNECTOR,
 				"Perform search by key."); //$NON-NLS-1$
 		
-		List<Object> values =visitor.getCriteriaValues();
-		List<Object> results = new ArrayList<Object>();
-
-		boolean hasLimit = (visitor.getLimit() > 0);
+		// when ordered, the limit is applied after the rows are sorted
+		final int limit = (visitor.getOrderBy() == null ? visitor.getSearchLimit() : 0);
 		
-		if (values == null || values.isEmpty()) {
-			if (hasLimit) {
-				
-				return getFirst(conn, visitor.getLimit());
-			} 
+		if (visitor.getKeyValues(conn.getPkField()) != null) {
+			final List<Object> values = visitor.getCriteriaValues();
 			
-			results.addAll(conn.getAll());
+			// all the objects are read with one bulk request, but returned in the order of the values
+			final Map<Object, Object> objects = conn.getAll(values);
 			
-			return results;
-		}
-		for (Object value:values) {
-			Object cv = conn.get(value);
-			if (cv != null) {
-				results.add(cv);
-			}		
-			if (hasLimit && results.size() >= visitor.getLimit()) {
-				break;
-			}
+			return new LimitedSearchCursor(values.iterator(), limit) {
+				@Override
+				protected Object read(Object value) {
+					return objects.get(value);
+				}
+			};
+		}
+		
+		final ObjectPredicate predicate = ObjectPredicate.compile(visitor, conn);
+		
+		final Set<Object> keys = getIndexedKeys(visitor);
+		if (keys != null) {
+			// the index narrows the objects to be read, the predicate is still evaluated for the remaining criteria 
+			final Map<Object, Object> objects = conn.getAll(keys);
+			
+			return new LimitedSearchCursor(keys.iterator(), limit) {
+				@Override
+				protected Object read(Object key) throws TranslatorException {
+					Object o = objects.get(key);
+					return (o != null && predicate.matches(o) ? o : null);
+				}
+			};
 		}
 
-		return results;
+		// resolve the cache now, because the staging target isn't set when the cursor is read
+		Map<Object, Object> cache = (Map<Object, Object>) conn.getCache();
+		
+		// the rows are returned while the cache can be changed, so unless the map can be iterated while it's 
+		// changed, the values are copied, otherwise a change would fail the iteration
+		Collection<Object> values = cache.values();
+		if (!(cache instanceof ConcurrentMap)) {
+			values = new ArrayList<Object>(values);
+		}
+		
+		if (predicate == null) {
+			return new LimitedSearchCursor(values.iterator(), limit);
+		}
+		
+		// the objects are filtered as they're read
+		return new LimitedSearchCursor(values.iterator(), limit) {
+			@Override
+			protected Object read(Object value) throws TranslatorException {
+				return (predicate.matches(value) ? value : null);
+			}
+		};
 
 	}
 	
-	private List<Object> getFirst(ObjectConnection conn, int limit) throws TranslatorException {
-		List<Object> objs = new ArrayList<Object>();
-		@SuppressWarnings("unchecked")
-		Map<Object, Object> c = (Map<Object, Object>) conn.getCache();
-		int i = 0;
-		
-		for (Object k : c.keySet()) {
-			objs.add(c.get(k));
-			++i;
-			if (i >= limit) break;
-		}
-		return objs;
+	/**
+	 * Uses a secondary index to find the keys of the objects that can match the criteria.  An equality
+	 * or IN comparison, that's ANDed with the rest of the criteria, can use either type of index, where as 
+	 * the range comparisons can only use a sorted index.
+	 * @return Set of keys, or <code>null</code> when no index can be used 
+	 */
+	private Set<Object> getIndexedKeys(ObjectVisitor visitor) throws TranslatorException {
+		if (!(conn instanceof SimpleMapCacheConnection) || visitor.getRootTableName() != null || visitor.getWhereCriteria() == null) {
+			return null;
+		}
+		SimpleMapCacheConnection mapConn = (SimpleMapCacheConnection) conn;
+		
+		List<Condition> conditions = LanguageUtil.separateCriteriaByAnd(visitor.getWhereCriteria());
+		
+		for (Condition c : conditions) {
+			Column col = null;
+			List<Object> values = new ArrayList<Object>();
+			if (c instanceof Comparison && ((Comparison) c).getOperator() == Comparison.Operator.EQ) {
+				Comparison comp = (Comparison) c;
+				col = getIndexedColumn(comp.getLeftExpression(), comp.getRightExpression());
+				if (col != null) {
+					values.add(((Literal) comp.getRightExpression()).getValue());
+				} else {
+					col = getIndexedColumn(comp.getRightExpression(), comp.getLeftExpression());
+					if (col != null) {
+						values.add(((Literal) comp.getLeftExpression()).getValue());
+					}
+				}
+			} else if (c instanceof In && !((In) c).isNegated()) {
+				In in = (In) c;
+				for (Expression e : in.getRightExpressions()) {
+					if (!(e instanceof Literal)) {
+						values = null;
+						break;
+					}
+					values.add(((Literal) e).getValue());
+				}
+				if (values != null) {
+					col = getIndexedColumn(in.getLeftExpression(), in.getRightExpressions().get(0));
+				}
+			}
+			if (col != null) {
+				boolean sorted = JavaBeanMetadataProcessor.SORTED_INDEX.equalsIgnoreCase(col.getProperty(JavaBeanMetadataProcessor.INDEX_PROPERTY, false));
+				return mapConn.getIndex(ObjectUtil.getRecordName(col), col.getRuntimeType(), sorted).getKeys(values);
+			}
+		}
+		
+		// use the bounds for the first column with a sorted index  
+		Column rangeCol = null;
+		Object lower = null;
+		boolean lowerInclusive = false;
+		Object upper = null;
+		boolean upperInclusive = false;
+		for (Condition c : conditions) {
+			if (!(c instanceof Comparison)) {
+				continue;
+			}
+			Comparison comp = (Comparison) c;
+			Comparison.Operator op = comp.getOperator();
+			if (op == Comparison.Operator.EQ || op == Comparison.Operator.NE) {
+				continue;
+			}
+			Column col = getIndexedColumn(comp.getLeftExpression(), comp.getRightExpression());
+			Object value = null;
+			if (col != null) {
+				value = ((Literal) comp.getRightExpression()).getValue();
+			} else {
+				col = getIndexedColumn(comp.getRightExpression(), comp.getLeftExpression());
+				if (col == null) {
+					continue;
+				}
+				value = ((Literal) comp.getLeftExpression()).getValue();
+				// the column is on the right, so the comparison is reversed
+				switch (op) {
+				case LT:
+					op = Comparison.Operator.GT;
+					break;
+				case LE:
+					op = Comparison.Operator.GE;
+					break;
+				case GT:
+					op = Comparison.Operator.LT;
+					break;
+				default:
+					op = Comparison.Operator.LE;
+				}
+			}
+			if (value == null || !JavaBeanMetadataProcessor.SORTED_INDEX.equalsIgnoreCase(col.getProperty(JavaBeanMetadataProcessor.INDEX_PROPERTY, false))
+					|| (rangeCol != null && rangeCol != col)) {
+				continue;
+			}
+			rangeCol = col;
+			if ((op == Comparison.Operator.GT || op == Comparison.Operator.GE) && lower == null) {
+				lower = value;
+				lowerInclusive = (op == Comparison.Operator.GE);
+			} else if ((op == Comparison.Operator.LT || op == Comparison.Operator.LE) && upper == null) {
+				upper = value;
+				upperInclusive = (op == Comparison.Operator.LE);
+			}
+		}
+		
+		if (rangeCol == null) {
+			return null;
+		}
+		return mapConn.getIndex(ObjectUtil.getRecordName(rangeCol), rangeCol.getRuntimeType(), true).getKeys(lower, lowerInclusive, upper, upperInclusive);
+	}
+	
+	/**
+	 * @return Column when the expression is an indexed column that's compared to a literal, otherwise <code>null</code>
+	 */
+	private static Column getIndexedColumn(Expression e, Expression value) {
+		if (!(e instanceof ColumnReference) || !(value instanceof Literal)) {
+			return null;
+		}
+		Column col = ((ColumnReference) e).getMetadataObject();
+		String index = (col == null ? null : col.getProperty(JavaBeanMetadataProcessor.INDEX_PROPERTY, false));
+		if (index == null || JavaBeanMetadataProcessor.NO_INDEX.equalsIgnoreCase(index)) {
+			return null;
+		}
+		return col;
+	}
+	
+	/**
+	 * Reads the objects from the iterator, skipping those not found, 
+	 * until the limit (when greater than zero) is reached.
+	 */
+	static class LimitedSearchCursor implements SearchCursor {
+		private Iterator<Object> it;
+		private int limit;
+		private int cnt = 0;
+		private Object nextObject = null;
+		
+		LimitedSearchCursor(Iterator<Object> it, int limit) {
+			this.it = it;
+			this.limit = limit;
+		}
+		
+		protected Object read(Object value) throws TranslatorException {
+			return value;
+		}
+		
+		@Override
+		public boolean hasNext() throws TranslatorException {
+			if (nextObject != null) {
+				return true;
+			}
+			if (it == null || (limit > 0 && cnt >= limit)) {
+				return false;
+			}
+			while (it.hasNext()) {
+				Object o = read(it.next());
+				if (o != null) {
+					nextObject = o;
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public Object next() throws TranslatorException {
+			if (!hasNext()) {
+				return null;
+			}
+			Object o = nextObject;
+			nextObject = null;
+			++cnt;
+			return o;
+		}
+		
+		@Override
+		public void close() {
+			it = null;
+			nextObject = null;
+		}
 	}
 }
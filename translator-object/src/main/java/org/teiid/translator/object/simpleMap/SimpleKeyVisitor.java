@@ -21,6 +21,7 @@
  */
 package org.teiid.translator.object.simpleMap;
 
+import org.teiid.language.In;
 import org.teiid.translator.object.ObjectVisitor;
 
 /**
@@ -29,6 +30,16 @@ import org.teiid.translator.object.ObjectVisitor;
  */
 public class SimpleKeyVisitor extends ObjectVisitor {
 		
-
+	/**
+	 * NOT IN is evaluated against the objects by the {@link org.teiid.translator.object.ObjectPredicate}, 
+	 * the IN values are only collected when they can be used as keys.
+	 */
+	@Override
+	public void visit(In obj) {
+		if (obj.isNegated()) {
+			return;
+		}
+		super.visit(obj);
+	}
 
 }
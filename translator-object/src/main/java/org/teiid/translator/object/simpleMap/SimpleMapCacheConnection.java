@@ -2,6 +2,7 @@ package org.teiid.translator.object.simpleMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,6 +11,7 @@ import org.teiid.translator.object.CacheNameProxy;
 import org.teiid.translator.object.ClassRegistry;
 import org.teiid.translator.object.DDLHandler;
 import org.teiid.translator.object.ObjectConnection;
+import org.teiid.translator.object.ObjectMerge;
 import org.teiid.translator.object.SearchType;
 import org.teiid.util.Version;
 
@@ -64,14 +66,17 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	 */
 	@Override
 	public Map<Object, Object> getCache(String cacheName) throws TranslatorException {
-
-		String cn = null;
+		return getCache(cacheName, getCacheKey(cacheName));
+	}
+	
+	private String getCacheKey(String cacheName) throws TranslatorException {
 		if (cacheName.equals(proxy.getAliasCacheName())) {
-			cn = cacheName;
-		} else {
-			cn = proxy.getCacheName(cacheName, this	);
-		}
-		
+			return cacheName;
+		} 
+		return proxy.getCacheName(cacheName, this	);
+	}
+	
+	private Map<Object, Object> getCache(String cacheName, String cn) throws TranslatorException {
 		Map<Object, Object> cache = mapCaches.get(cn);
 		if (cache == null) {
 			String keymsg = proxy.getPrimaryCacheKey() + "|" +  (proxy.getStageCacheKey() != null ? proxy.getStageCacheKey() : "N/A") + "|" + (proxy.getAliasCacheName() != null ? proxy.getAliasCacheName() : "N/A") ;
@@ -83,11 +88,18 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	
 	@Override
 	public void cleanUp() {
+		// the indexes are shared by the other connections to the maps, so they're kept
 		mapCaches.clear();
 	}
 
 	@Override
 	public void forceCleanUp() {
+		// the indexes may not have all the changes, so they're rebuilt when next used
+		for (Map<Object, Object> cache : mapCaches.values()) {
+			if (cache != null) {
+				MapCacheIndexes.removeIndexes(cache);
+			}
+		}
 		mapCaches.clear();
 	}
 
@@ -168,7 +180,64 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	 */
 	@Override
 	public void add(Object key, Object value) throws TranslatorException {
-		this.getCache().put(key, value);
+		Map<Object, Object> cache = getCache();
+		cache.put(key, value);
+		for (MapCacheIndex index : getIndexes(cache)) {
+			index.put(key, value);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#addIfAbsent(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public Object addIfAbsent(Object key, Object value) throws TranslatorException {
+		Map<Object, Object> cache = getCache();
+		synchronized (cache) {
+			Object existing = cache.get(key);
+			if (existing == null) {
+				add(key, value);
+			}
+			return existing;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#upsert(java.lang.Object, java.lang.Object, org.teiid.translator.object.ObjectMerge)
+	 */
+	@Override
+	public void upsert(Object key, Object value, ObjectMerge merge) throws TranslatorException {
+		Map<Object, Object> cache = getCache();
+		synchronized (cache) {
+			Object existing = cache.get(key);
+			add(key, existing == null ? value : merge.merge(existing));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#addAllIfAbsent(java.util.Map)
+	 */
+	@Override
+	public Map<Object, Object> addAllIfAbsent(Map<Object, Object> values) throws TranslatorException {
+		Map<Object, Object> result = new HashMap<Object, Object>();
+		Map<Object, Object> cache = getCache();
+		synchronized (cache) {
+			for (Map.Entry<Object, Object> e : values.entrySet()) {
+				Object existing = cache.get(e.getKey());
+				if (existing == null) {
+					add(e.getKey(), e.getValue());
+				} else {
+					result.put(e.getKey(), existing);
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -178,7 +247,42 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	 */
 	@Override
 	public Object remove(Object key) throws TranslatorException {
-		return this.getCache().remove(key);
+		Map<Object, Object> cache = getCache();
+		Object value = cache.remove(key);
+		for (MapCacheIndex index : getIndexes(cache)) {
+			index.remove(key);
+		}
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#remove(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object key, Object value) throws TranslatorException {
+		Map<Object, Object> cache = getCache();
+		synchronized (cache) {
+			Object existing = cache.get(key);
+			if (existing == null || !existing.equals(value)) {
+				return false;
+			}
+			remove(key);
+			return true;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#removeAll(java.util.Collection)
+	 */
+	@Override
+	public void removeAll(Collection<?> keys) throws TranslatorException {
+		for (Object key : keys) {
+			remove(key);
+		}
 	}
 
 	/**
@@ -188,7 +292,25 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	 */
 	@Override
 	public void update(Object key, Object value) throws TranslatorException {
-		this.getCache().put(key, value);
+		add(key, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#replace(java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean replace(Object key, Object oldValue, Object newValue) throws TranslatorException {
+		Map<Object, Object> cache = getCache();
+		synchronized (cache) {
+			Object existing = cache.get(key);
+			if (existing == null || !existing.equals(oldValue)) {
+				return false;
+			}
+			add(key, newValue);
+			return true;
+		}
 	}
 
 	/**
@@ -200,6 +322,25 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	public Object get(Object key)  throws TranslatorException {
 		return this.getCache().get(key);
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.teiid.translator.object.ObjectConnection#getAll(java.util.Collection)
+	 */
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) throws TranslatorException {
+		// the cache name is resolved once for all the keys
+		Map<Object, Object> c = getCache();
+		Map<Object, Object> objs = new HashMap<Object, Object>(keys.size());
+		for (Object k : keys) {
+			Object v = c.get(k);
+			if (v != null) {
+				objs.put(k, v);
+			}
+		}
+		return objs;
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -236,6 +377,46 @@ public class SimpleMapCacheConnection implements ObjectConnection {
 	public void clearCache(String cacheName) throws TranslatorException {
 		Map<Object, Object> c = getCache(cacheName);
 		c.clear();
+		for (MapCacheIndex index : getIndexes(c)) {
+			index.clear();
+		}
+	}
+	
+	/**
+	 * Returns the secondary index on the attribute of the objects in the current cache.  The index
+	 * is built the first time it's requested, and then is kept in sync as objects are added, updated and removed
+	 * using any connection to the same cache map, see {@link MapCacheIndexes}.  Changes made directly to the 
+	 * cache map aren't seen by the index.
+	 * @param attributeName is the name of the attribute that's indexed
+	 * @param runtimeType is the Teiid runtime type that the values are indexed as
+	 * @param sorted is true when the index is to be used for range comparisons
+	 * @return MapCacheIndex
+	 * @throws TranslatorException
+	 */
+	public MapCacheIndex getIndex(String attributeName, String runtimeType, boolean sorted) throws TranslatorException {
+		Map<Object, Object> cache = getCache();
+		
+		Map<String, MapCacheIndex> cacheIndexes = MapCacheIndexes.getIndexes(cache, true);
+		synchronized (cacheIndexes) {
+			String indexName = (sorted ? "sorted:" : "hash:") + attributeName; //$NON-NLS-1$ //$NON-NLS-2$
+			MapCacheIndex index = cacheIndexes.get(indexName);
+			if (index == null) {
+				index = new MapCacheIndex(attributeName, runtimeType, sorted, getCacheClassType(), registry);
+				index.load(cache);
+				cacheIndexes.put(indexName, index);
+			}
+			return index;
+		}
+	}
+	
+	private static Collection<MapCacheIndex> getIndexes(Map<Object, Object> cache) {
+		Map<String, MapCacheIndex> cacheIndexes = MapCacheIndexes.getIndexes(cache, false);
+		if (cacheIndexes == null) {
+			return Collections.emptyList();
+		}
+		synchronized (cacheIndexes) {
+			return new ArrayList<MapCacheIndex>(cacheIndexes.values());
+		}
 	}
 
 	/**
@@ -33,6 +33,7 @@ import org.teiid.translator.UpdateExecution;
 import org.teiid.translator.object.ObjectConnection;
 import org.teiid.translator.object.ObjectExecution;
 import org.teiid.translator.object.ObjectExecutionFactory;
+import org.teiid.translator.object.ObjectPredicate;
 import org.teiid.translator.object.ObjectUpdateExecution;
 import org.teiid.translator.object.ObjectVisitor;
 
@@ -55,7 +56,7 @@ public class SimpleMapCacheExecutionFactory extends ObjectExecutionFactory {
 		setMaxInCriteriaSize(MAX_SET_SIZE);
 		setMaxDependentInPredicates(1);
 
-		setSupportsOrderBy(false);
+		setSupportsOrderBy(true);
 		setSupportsSelectDistinct(false);
 		setSupportsInnerJoins(false);
 		setSupportsFullOuterJoins(false);
@@ -87,4 +88,46 @@ public class SimpleMapCacheExecutionFactory extends ObjectExecutionFactory {
     	};
 	}	
     
+	/**
+	 * The map isn't ordered, so the rows are sorted by the execution
+	 */
+	@Override
+	public boolean supportsOrderByInSearch() {
+		return false;
+	}
+	
+	/**
+	 * The criteria that isn't on the key is evaluated against the objects in the map
+	 * by the {@link ObjectPredicate}
+	 */
+	@Override
+	public boolean supportsCompareCriteriaOrdered() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsIsNullCriteria() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsOrCriteria() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsNotCriteria() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsLikeCriteria() {
+		return true;
+	}
+	
+	@Override
+	public boolean supportsLikeCriteriaEscapeCharacter() {
+		return true;
+	}
+    
 }
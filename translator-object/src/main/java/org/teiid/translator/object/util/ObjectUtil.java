@@ -21,6 +21,9 @@
  */
 package org.teiid.translator.object.util;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -98,6 +101,28 @@ public class ObjectUtil {
 	}
 
 	
+	/**
+	 * Copies the properties that have a getter and a setter, the property values themselves aren't copied.
+	 * @param from
+	 * @param to is an instance of the class of <code>from</code>
+	 * @return Object <code>to</code>
+	 * @throws TranslatorException
+	 */
+	public static <T> T copyProperties(Object from, T to) throws TranslatorException {
+		try {
+			for (PropertyDescriptor pd : Introspector.getBeanInfo(from.getClass()).getPropertyDescriptors()) {
+				if (pd.getReadMethod() != null && pd.getWriteMethod() != null) {
+					pd.getWriteMethod().invoke(to, pd.getReadMethod().invoke(from));
+				}
+			}
+			return to;
+		} catch (IntrospectionException e) {
+			throw new TranslatorException(e);
+		} catch (ReflectiveOperationException e) {
+			throw new TranslatorException(e);
+		}
+	}
+	
 	public static Class<?> getRegisteredClass(ClassRegistry classRegistry, ObjectVisitor visitor) throws TranslatorException {
 		String tname = (visitor.getPrimaryTable() != null ? visitor.getPrimaryTable() :  visitor.getTableName());
 
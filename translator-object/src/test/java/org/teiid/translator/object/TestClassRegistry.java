@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
+
+@SuppressWarnings("nls")
+public class TestClassRegistry {
+	
+	@Test public void testAttributeType() throws Exception {
+		ClassRegistry registry = new ClassRegistry();
+		
+		assertEquals(long.class, registry.getAttributeType(Trade.class, "tradeId"));
+		assertEquals(Trade.class, registry.getAttributeType(Trade.class, "this"));
+		
+		// the type of the elements is read from the declaration of the collection
+		assertEquals(Leg.class, registry.getAttributeType(Trade.class, "legs"));
+		assertEquals(String.class, registry.getAttributeType(Trade.class, "legs.legName"));
+		assertEquals(Object.class, registry.getAttributeType(Trade.class, "legs.transactions.lineItem"));
+		
+		assertNull(registry.getAttributeType(Trade.class, "noSuchAttribute"));
+		assertNull(registry.getAttributeType(Trade.class, "legs.noSuchAttribute.legName"));
+		assertNull(registry.getAttributeType(null, "tradeId"));
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.language.AndOr;
+import org.teiid.language.Comparison;
+import org.teiid.language.In;
+import org.teiid.language.IsNull;
+import org.teiid.language.Select;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.object.testdata.person.PersonSchemaVDBUtility;
+import org.teiid.translator.object.testdata.trades.TradesCacheSource;
+import org.teiid.translator.object.testdata.trades.VDBUtility;
+
+@SuppressWarnings("nls")
+public class TestCriteriaPlanner {
+	
+	private static CriteriaPlanner plan(String sql) throws TranslatorException {
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand(sql);
+		ObjectVisitor visitor = new ObjectVisitor();
+		visitor.visitNode(command);
+		return CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection());
+	}
+	
+	@Test public void testSplitCriteria() throws Exception {
+		CriteriaPlanner plan = plan("select TradeID From Trade_Object.Trade as T where TradeID > 1 and TradeName is null");
+		
+		assertTrue(plan.getIndexedCriteria() instanceof Comparison);
+		assertTrue(plan.getResidualCriteria() instanceof IsNull);
+	}
+	
+	@Test public void testOrWithResidualSide() throws Exception {
+		CriteriaPlanner plan = plan("select TradeID From Trade_Object.Trade as T where TradeID > 1 or TradeName is null");
+		
+		assertNull(plan.getIndexedCriteria());
+		assertTrue(plan.getResidualCriteria() instanceof AndOr);
+	}
+	
+	@Test public void testNotInIsResidual() throws Exception {
+		CriteriaPlanner plan = plan("select TradeID From Trade_Object.Trade as T where TradeID > 1 and TradeID not in (2, 3)");
+		
+		assertTrue(plan.getIndexedCriteria() instanceof Comparison);
+		assertTrue(plan.getResidualCriteria() instanceof In);
+	}
+	
+	@Test public void testAggregateWithResidualCriteria() throws Exception {
+		CriteriaPlanner plan = plan("select count(*) From Trade_Object.Trade as T where TradeName is null");
+		
+		assertFalse(plan.isAggregatedByQuery());
+		assertTrue(plan.getResidualCriteria() instanceof IsNull);
+		
+		plan = plan("select count(*) From Trade_Object.Trade as T where TradeID > 1");
+		assertTrue(plan.isAggregatedByQuery());
+	}
+	
+	@Test public void testChildCriteriaIsNotResidual() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		ObjectVisitor visitor = new ObjectVisitor();
+		visitor.visitNode(nested.parseCommand("select legName From Leg where tradeId = 1 and legName is null"));
+		
+		CriteriaPlanner plan = CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection());
+		assertTrue(plan.getIndexedCriteria() instanceof Comparison);
+		assertNull(plan.getResidualCriteria());
+		assertTrue(CriteriaPlanner.getChildCriteria(visitor) instanceof IsNull);
+		assertTrue(CriteriaPlanner.getObjectCriteria(visitor) instanceof Comparison);
+	}
+	
+	@Test public void testChildTableIsNotAggregatedByQuery() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		ObjectVisitor visitor = new ObjectVisitor();
+		visitor.visitNode(nested.parseCommand("select count(*) From Leg where tradeId = 1"));
+		
+		// the query returns the trades, so the legs are aggregated by the execution
+		CriteriaPlanner plan = CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection());
+		assertTrue(plan.getIndexedCriteria() instanceof Comparison);
+		assertFalse(plan.isAggregatedByQuery());
+		
+		visitor = new ObjectVisitor();
+		visitor.visitNode(nested.parseCommand("select count(*) From Leg"));
+		assertFalse(CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection()).isAggregatedByQuery());
+	}
+	
+	@Test public void testUnsearchableIsResidual() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		ObjectVisitor visitor = new ObjectVisitor();
+		visitor.visitNode(nested.parseCommand("select tradeId From Trade where tradeId > 1 and name = 'TradeName 2'"));
+		
+		// the name column isn't searchable, because the attribute isn't indexed
+		CriteriaPlanner plan = CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection());
+		assertTrue(plan.getIndexedCriteria() instanceof Comparison);
+		assertTrue(plan.getResidualCriteria() instanceof Comparison);
+		assertFalse(plan.isAggregatedByQuery());
+		
+		visitor = new ObjectVisitor();
+		visitor.visitNode(nested.parseCommand("select tradeId From Trade where name like 'TradeName%'"));
+		assertNull(CriteriaPlanner.plan(visitor, TradesCacheSource.createConnection()).getIndexedCriteria());
+	}
+	
+	@Test public void testAllIndexed() throws Exception {
+		CriteriaPlanner plan = plan("select TradeID From Trade_Object.Trade as T where TradeID in (1, 2) and TradeName like 'TradeName%'");
+		
+		assertTrue(plan.getIndexedCriteria() instanceof AndOr);
+		assertNull(plan.getResidualCriteria());
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.translator.object.simpleMap.MapCacheIndex;
+import org.teiid.translator.object.simpleMap.SimpleMapCacheConnection;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
+import org.teiid.translator.object.testdata.trades.TradesCacheSource;
+
+@SuppressWarnings("nls")
+public class TestMapCacheIndex {
+	
+	@Test public void testHashIndex() throws Exception {
+		Map<Object, Object> cache = TradesCacheSource.loadCache();
+		
+		MapCacheIndex index = new MapCacheIndex("name", "string", false, Trade.class, new ClassRegistry());
+		index.load(cache);
+		
+		assertEquals(Collections.singleton(2L), index.getKeys(Arrays.asList("TradeName 2")));
+		assertEquals(new LinkedHashSet<Object>(Arrays.asList(1L, 3L)), index.getKeys(Arrays.asList("TradeName 1", "TradeName 3", "x")));
+		
+		// the object is changed in place, then the index is updated
+		Trade t = (Trade) cache.get(2L);
+		t.setName("Changed");
+		index.put(2L, t);
+		
+		assertTrue(index.getKeys(Arrays.asList("TradeName 2")).isEmpty());
+		assertEquals(Collections.singleton(2L), index.getKeys(Arrays.asList("Changed")));
+		
+		index.remove(2L);
+		assertTrue(index.getKeys(Arrays.asList("Changed")).isEmpty());
+	}
+	
+	@Test public void testSortedIndex() throws Exception {
+		Map<Object, Object> cache = TradesCacheSource.loadCache();
+		
+		MapCacheIndex index = new MapCacheIndex("tradeId", "long", true, Trade.class, new ClassRegistry());
+		index.load(cache);
+		
+		assertEquals(new LinkedHashSet<Object>(Arrays.asList(2L, 3L)), index.getKeys(1L, false, null, false));
+		assertEquals(new LinkedHashSet<Object>(Arrays.asList(1L, 2L)), index.getKeys(null, false, 2L, true));
+		assertEquals(Collections.singleton(2L), index.getKeys(2L, true, 3L, false));
+	}
+	
+	@Test public void testIndexSharedByConnections() throws Exception {
+		Map<Object, Object> cache = TradesCacheSource.loadCache();
+		SimpleMapCacheConnection conn1 = (SimpleMapCacheConnection) TradesCacheSource.createConnection(cache);
+		SimpleMapCacheConnection conn2 = (SimpleMapCacheConnection) TradesCacheSource.createConnection(cache);
+		
+		MapCacheIndex index = conn1.getIndex("name", "string", false);
+		assertSame(index, conn2.getIndex("name", "string", false));
+		
+		// the changes using the other connection are seen by the index
+		conn2.add(4L, new Trade(4, "TradeName 4", new ArrayList<Leg>(), new Date()));
+		assertEquals(Collections.singleton(4L), conn1.getIndex("name", "string", false).getKeys(Arrays.asList("TradeName 4")));
+		
+		conn2.remove(2L);
+		assertTrue(conn1.getIndex("name", "string", false).getKeys(Arrays.asList("TradeName 2")).isEmpty());
+		
+		// the connections to another map have their own indexes
+		SimpleMapCacheConnection conn3 = (SimpleMapCacheConnection) TradesCacheSource.createConnection(TradesCacheSource.loadCache());
+		assertEquals(Collections.singleton(2L), conn3.getIndex("name", "string", false).getKeys(Arrays.asList("TradeName 2")));
+	}
+
+}
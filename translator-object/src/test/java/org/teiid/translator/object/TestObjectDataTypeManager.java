@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.teiid.translator.object.ObjectDataTypeManager.ValueConverter;
+import org.teiid.translator.object.testdata.person.PhoneType;
+
+@SuppressWarnings("nls")
+public class TestObjectDataTypeManager {
+	
+	@Test public void testConvertToEnum() throws Exception {
+		ObjectDataTypeManager dtm = new ObjectDataTypeManager();
+		assertSame(PhoneType.HOME, dtm.convertToObjectType("home", PhoneType.class));
+		assertSame(PhoneType.WORK, dtm.convertToObjectType("WORK", PhoneType.class));
+	}
+	
+	@Test public void testConverterOfColumn() throws Exception {
+		ObjectDataTypeManager dtm = new ObjectDataTypeManager();
+		ValueConverter converter = dtm.getFromObjectTypeConverter(String.class, String.class);
+		assertNull(converter.convert(null));
+		assertEquals("a", converter.convert("a"));
+		
+		byte[] bytes = new byte[] {1, 2};
+		assertSame(bytes, converter.convert(bytes));
+		
+		Object o = new Object();
+		assertSame(o, dtm.getFromObjectTypeConverter(null, Object.class).convert(o));
+	}
+	
+	@Test public void testConverterOfOtherClass() throws Exception {
+		ObjectDataTypeManager dtm = new ObjectDataTypeManager();
+		ValueConverter converter = dtm.getFromObjectTypeConverter(int.class, Long.class);
+		assertEquals(1L, converter.convert(1));
+		
+		// a value that isn't of the declared type is converted without changing the converter
+		assertEquals(2L, converter.convert("2"));
+		assertEquals(3L, converter.convert(3));
+		
+		converter = dtm.getFromObjectTypeConverter(null, Long.class);
+		assertEquals(4L, converter.convert(4));
+		assertEquals(5L, converter.convert("5"));
+	}
+
+}
@@ -23,8 +23,15 @@ package org.teiid.translator.object;
 
 import static org.junit.Assert.*;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -114,5 +121,63 @@ public class TestObjectExecutionFactory {
 		
 		assertEquals(1, physicalTable.getAllKeys().size());
 	}	
+	
+	@Test public void testPrefetchExecutor() throws Exception {
+		assertNull(factory.getPrefetchExecutor());
+		
+		factory = new TestFactory() {
+			@Override
+			public int getPrefetchDepth() {
+				return 2;
+			}
+		};
+		Executor executor = factory.getPrefetchExecutor();
+		
+		// each read ahead has a thread, until the maximum are running
+		final CountDownLatch started = new CountDownLatch(ObjectExecutionFactory.MAX_PREFETCH_THREADS);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+		for (int i = 0; i < ObjectExecutionFactory.MAX_PREFETCH_THREADS; i++) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					threads.add(Thread.currentThread());
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertEquals(ObjectExecutionFactory.MAX_PREFETCH_THREADS, threads.size());
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+			fail("all the threads are busy");
+		} catch (RejectedExecutionException e) {
+			
+		}
+		
+		// the threads end with the reads, so there's nothing to shut down
+		release.countDown();
+		for (Thread t : threads) {
+			t.join(10000);
+			assertFalse(t.isAlive());
+		}
+		final CountDownLatch ran = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				ran.countDown();
+			}
+		});
+		assertTrue(ran.await(10, TimeUnit.SECONDS));
+	}
 
 }
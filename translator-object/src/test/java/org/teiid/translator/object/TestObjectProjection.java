@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
+
+@SuppressWarnings("nls")
+public class TestObjectProjection {
+	
+	@Test public void testProject() throws Exception {
+		ObjectProjection projection = ObjectProjection.compile(new String[] {"name", "tradeId"}, new ClassRegistry());
+		
+		Trade t = new Trade(1, "TradeName 1", new ArrayList<Leg>(), new Date());
+		
+		assertEquals(Arrays.asList("TradeName 1", 1L), Arrays.asList(projection.project(t)));
+	}
+	
+	@Test public void testProjectAfterSerialization() throws Exception {
+		ObjectProjection projection = ObjectProjection.compile(new String[] {"name", "tradeId"}, new ClassRegistry());
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(projection);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		
+		// the accessors are compiled again by the node the projection is sent to 
+		ObjectProjection copy = (ObjectProjection) ois.readObject();
+		
+		Trade t = new Trade(2, "TradeName 2", new ArrayList<Leg>(), new Date());
+		
+		assertEquals(Arrays.asList("TradeName 2", 2L), Arrays.asList(copy.project(t)));
+	}
+
+}
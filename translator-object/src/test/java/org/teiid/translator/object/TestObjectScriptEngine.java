@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Map;
+
+import javax.script.ScriptContext;
+import javax.script.SimpleScriptContext;
+
+import org.junit.Test;
+import org.teiid.translator.object.ObjectScriptEngine.ObjectCompiledScript;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
+
+@SuppressWarnings("nls")
+public class TestObjectScriptEngine {
+	
+	@Test public void testReadAttribute() throws Exception {
+		ObjectScriptEngine engine = new ObjectScriptEngine(true);
+		ObjectCompiledScript cs = engine.compile("o.name");
+		
+		Trade t = new Trade(1, "TradeName 1", new ArrayList<Leg>(), new Date());
+		assertEquals("TradeName 1", cs.eval(t));
+		assertNull(cs.eval((Object) null));
+		
+		ScriptContext sc = new SimpleScriptContext();
+		sc.setAttribute(ClassRegistry.OBJECT_NAME, t, ScriptContext.ENGINE_SCOPE);
+		assertEquals("TradeName 1", cs.eval(sc));
+	}
+	
+	@Test public void testReadAttributeOfDifferentClasses() throws Exception {
+		ObjectScriptEngine engine = new ObjectScriptEngine(true);
+		ObjectCompiledScript cs = engine.compile("o.legName");
+		
+		assertEquals("Leg 1", cs.eval(new Leg(1, "Leg 1", 1.0, new Date())));
+		assertEquals("Leg 2", cs.eval(new Leg(2, "Leg 2", 2.0, new Date())));
+		
+		// the getter is resolved again for another class
+		Leg subclass = new Leg(3, "Leg 3", 3.0, new Date()) {
+			private static final long serialVersionUID = 1L;
+		};
+		assertEquals("Leg 3", cs.eval(subclass));
+	}
+	
+	@Test public void testMethodMapIsSharedPerClass() throws Exception {
+		ObjectScriptEngine readEngine = new ObjectScriptEngine(true);
+		Map<String, Method> methods = readEngine.getMethodMap(Trade.class);
+		assertSame(methods, readEngine.getMethodMap(Trade.class));
+		assertTrue(methods.containsKey("name"));
+		assertFalse(methods.containsKey("setName"));
+		
+		// the write engine keeps its own methods for the same class
+		ObjectScriptEngine writeEngine = new ObjectScriptEngine(false);
+		Map<String, Method> writeMethods = writeEngine.getMethodMap(Trade.class);
+		assertNotSame(methods, writeMethods);
+		assertTrue(writeMethods.containsKey("name"));
+		assertEquals("setName", writeMethods.get("name").getName());
+	}
+
+}
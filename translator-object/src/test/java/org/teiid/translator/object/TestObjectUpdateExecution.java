@@ -1,12 +1,19 @@
 package org.teiid.translator.object;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Before;
@@ -14,7 +21,12 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.language.BatchedUpdates;
 import org.teiid.language.Command;
+import org.teiid.language.Expression;
+import org.teiid.language.ExpressionValueSource;
+import org.teiid.language.Insert;
+import org.teiid.language.Parameter;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.object.simpleMap.SimpleMapCacheExecutionFactory;
@@ -109,6 +121,99 @@ public class TestObjectUpdateExecution {
 	
 	}
 	
+	@Test
+	public void testUpsertRootClass() throws Exception {
+		Trade o = (Trade) CONNECTION.get(new Long(2).longValue());
+		assertNotNull(o);
+		boolean settled = o.isSettled();
+		String name = o.getName();
+		
+		Command command = translationUtility
+				.parseCommand("Upsert into Trade_Object.Trade (tradeId, TradeName) VALUES (2, 'Upserted 2')");
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(command, Collections.EMPTY_LIST);
+
+		ie.execute();
+
+		Trade p = (Trade) CONNECTION.get(new Long(2).longValue());
+		assertEquals("Upserted 2", p.getName());
+		assertEquals(settled, p.isSettled());
+		// the upsert writes a merged copy, instead of changing the object that was in the cache
+		assertEquals(name, o.getName());
+	}
+	
+	@Test
+	public void testBatchedInsertAndUpsert() throws Exception {
+		List<Command> commands = new ArrayList<Command>();
+		commands.add(translationUtility.parseCommand("Insert into Trade_Object.Trade (tradeId, TradeName, settled) VALUES (97, 'TestName 97', 'true')"));
+		commands.add(translationUtility.parseCommand("Insert into Trade_Object.Trade (tradeId, TradeName, settled) VALUES (98, 'TestName 98', 'false')"));
+		commands.add(translationUtility.parseCommand("Upsert into Trade_Object.Trade (tradeId, TradeName) VALUES (97, 'Changed 97')"));
+		commands.add(translationUtility.parseCommand("Upsert into Trade_Object.Trade (tradeId, TradeName) VALUES (2, 'Changed 2')"));
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(new BatchedUpdates(commands), Collections.EMPTY_LIST);
+
+		ie.execute();
+		assertArrayEquals(new int[] {1, 1, 1, 1}, ie.getUpdateCounts());
+
+		Trade p = (Trade) CONNECTION.get(new Long(97).longValue());
+		assertEquals("Changed 97", p.getName());
+		// the upsert only changes the columns it sets
+		assertTrue(p.isSettled());
+		assertEquals("TestName 98", ((Trade) CONNECTION.get(new Long(98).longValue())).getName());
+		assertEquals("Changed 2", ((Trade) CONNECTION.get(new Long(2).longValue())).getName());
+	}
+	
+	@Test
+	public void testBatchedInsertExistingKey() throws Exception {
+		List<Command> commands = new ArrayList<Command>();
+		commands.add(translationUtility.parseCommand("Insert into Trade_Object.Trade (tradeId, TradeName) VALUES (96, 'TestName 96')"));
+		commands.add(translationUtility.parseCommand("Insert into Trade_Object.Trade (tradeId, TradeName) VALUES (2, 'TestName 2')"));
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(new BatchedUpdates(commands), Collections.EMPTY_LIST);
+
+		try {
+			ie.execute();
+			fail("expected the existing key to fail the insert");
+		} catch (TranslatorException e) {
+			// the object in the cache isn't replaced
+			assertFalse("TestName 2".equals(((Trade) CONNECTION.get(new Long(2).longValue())).getName()));
+		}
+		assertEquals("TestName 96", ((Trade) CONNECTION.get(new Long(96).longValue())).getName());
+	}
+	
+	@Test
+	public void testBulkInsert() throws Exception {
+		Insert command = (Insert) translationUtility
+				.parseCommand("Insert into Trade_Object.Trade (tradeId, TradeName) VALUES (1, 'x')");
+		List<Expression> values = ((ExpressionValueSource)command.getValueSource()).getValues();
+		for (int i = 0; i < values.size(); i++) {
+			Parameter param = new Parameter();
+			param.setValueIndex(i);
+			param.setType(command.getColumns().get(i).getType());
+			values.set(i, param);
+		}
+		
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (long i = 100; i < 105; i++) {
+			rows.add(Arrays.asList(i, "TestName " + i));
+		}
+		command.setParameterValues(rows.iterator());
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(command, Collections.EMPTY_LIST);
+		TRANSLATOR.setInsertBatchSize(2);
+
+		ie.execute();
+		assertArrayEquals(new int[] {1, 1, 1, 1, 1}, ie.getUpdateCounts());
+
+		for (long i = 100; i < 105; i++) {
+			assertEquals("TestName " + i, ((Trade) CONNECTION.get(i)).getName());
+		}
+	}
+	
 	@Test
 	public void testInsertChildClass() throws Exception {
 		CONNECTION = TradesCacheSource.createConnection();
@@ -180,6 +285,52 @@ public class TestObjectUpdateExecution {
 
 	}
 	
+	@Test
+	public void testDeleteRootByKeys() throws Exception {
+		assertNotNull(CONNECTION.get(new Long(1).longValue()));
+		assertNotNull(CONNECTION.get(new Long(2).longValue()));
+
+		Command command = translationUtility
+				.parseCommand("Delete From Trade_Object.Trade Where tradeId in (1, 2, 99)");
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(command, Collections.EMPTY_LIST);
+
+		ie.execute();
+		// only the objects that existed are counted
+		assertArrayEquals(new int[] {2}, ie.getUpdateCounts());
+		assertNull(CONNECTION.get(new Long(1).longValue()));
+		assertNull(CONNECTION.get(new Long(2).longValue()));
+	}
+	
+	@Test
+	public void testKeyOfOtherTypeInCache() throws Exception {
+		// the keys can overlap across the types in the cache
+		Leg leg = new Leg(4, "Leg 4", 4.0, new Date());
+		CONNECTION.add(new Long(4).longValue(), leg);
+
+		Command command = translationUtility
+				.parseCommand("Update Trade_Object.Trade SET TradeName='Changed' WHERE TradeId in (2, 4)");
+
+		@SuppressWarnings("unchecked")
+		ObjectUpdateExecution ie = createExecution(command, Collections.EMPTY_LIST);
+
+		ie.execute();
+		assertArrayEquals(new int[] {1}, ie.getUpdateCounts());
+		assertEquals("Changed", ((Trade) CONNECTION.get(new Long(2).longValue())).getName());
+		assertSame(leg, CONNECTION.get(new Long(4).longValue()));
+		
+		command = translationUtility
+				.parseCommand("Delete From Trade_Object.Trade Where tradeId in (1, 4)");
+
+		ie = createExecution(command, Collections.EMPTY_LIST);
+
+		ie.execute();
+		assertArrayEquals(new int[] {1}, ie.getUpdateCounts());
+		assertNull(CONNECTION.get(new Long(1).longValue()));
+		assertSame(leg, CONNECTION.get(new Long(4).longValue()));
+	}
+	
 	@Test
 	public void testDeleteAll() throws Exception {
 		
@@ -201,6 +352,19 @@ public class TestObjectUpdateExecution {
 	}
 
 
+	@Test
+	public void testDeleteInBatches() throws Exception {
+		Command command = translationUtility
+				.parseCommand("Delete From Trade_Object.Trade Where TradeName like 'TradeName%'");
+
+		ObjectUpdateExecution ie = createExecution(command, new ArrayList<Object>());
+		TRANSLATOR.setDeleteBatchSize(2);
+
+		ie.execute();
+		assertArrayEquals(new int[] {3}, ie.getUpdateCounts());
+		assertTrue(CONNECTION.getAll().isEmpty());
+	}
+
 // TODD - add support for deleting container class
 //	public void testDeleteChildByValue() throws Exception {
 //		String phoneNumber="(111)222-3451";	
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.teiid.translator.TranslatorException;
+
+@SuppressWarnings("nls")
+public class TestPagedSearchCursor {
+	
+	private static ExecutorService EXECUTOR = Executors.newFixedThreadPool(2);
+	
+	@AfterClass public static void tearDown() {
+		EXECUTOR.shutdown();
+	}
+	
+	static class ListPagedSearchCursor extends PagedSearchCursor {
+		List<Integer> data;
+		List<Integer> requested = Collections.synchronizedList(new ArrayList<Integer>());
+
+		public ListPagedSearchCursor(int total, int pageSize, int limit) {
+			this(total, pageSize, 0, limit);
+		}
+		
+		public ListPagedSearchCursor(int total, int pageSize, int prefetchDepth, int limit) {
+			this(total, pageSize, prefetchDepth, EXECUTOR, limit);
+		}
+		
+		public ListPagedSearchCursor(int total, int pageSize, int prefetchDepth, Executor executor, int limit) {
+			super(pageSize, prefetchDepth, executor, limit);
+			data = new ArrayList<Integer>(total);
+			for (int i = 0; i < total; i++) {
+				data.add(i);
+			}
+		}
+
+		@Override
+		protected List<?> fetchPage(long startOffset, int maxResults) throws TranslatorException {
+			requested.add(maxResults);
+			int end = (maxResults > 0 ? (int) Math.min(data.size(), startOffset + maxResults) : data.size());
+			return data.subList((int) Math.min(startOffset, end), end);
+		}
+		
+		int readAll() throws TranslatorException {
+			int cnt = 0;
+			while (hasNext()) {
+				assertEquals(cnt, next());
+				cnt++;
+			}
+			return cnt;
+		}
+	}
+		
+	@Test public void testPages() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 10, 0);
+		assertEquals(25, cursor.readAll());
+		assertEquals(3, cursor.requested.size());
+	}	
+
+	@Test public void testExactPages() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(20, 10, 0);
+		assertEquals(20, cursor.readAll());
+		// the empty page indicates the end
+		assertEquals(3, cursor.requested.size());
+	}	
+
+	@Test public void testNoPageSize() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 0, 0);
+		assertEquals(25, cursor.readAll());
+		assertEquals(1, cursor.requested.size());
+	}	
+
+	@Test public void testLimit() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 10, 15);
+		assertEquals(15, cursor.readAll());
+		assertEquals(2, cursor.requested.size());
+		assertEquals(Integer.valueOf(5), cursor.requested.get(1));
+		
+		cursor = new ListPagedSearchCursor(25, 0, 15);
+		assertEquals(15, cursor.readAll());
+		assertEquals(1, cursor.requested.size());
+	}	
+
+	@Test public void testClose() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 10, 0);
+		cursor.next();
+		cursor.close();
+		assertFalse(cursor.hasNext());
+		assertEquals(1, cursor.requested.size());
+	}
+
+	@Test public void testPrefetch() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 10, 1, 0);
+		assertEquals(25, cursor.readAll());
+		assertEquals(3, cursor.requested.size());
+		
+		cursor = new ListPagedSearchCursor(25, 10, 2, 15);
+		assertEquals(15, cursor.readAll());
+		assertEquals(2, cursor.requested.size());
+	}	
+
+	@Test public void testPrefetchError() throws Exception {
+		PagedSearchCursor cursor = new PagedSearchCursor(10, 1, EXECUTOR, 0) {
+			@Override
+			protected List<?> fetchPage(long startOffset, int maxResults) throws TranslatorException {
+				if (startOffset > 0) {
+					throw new TranslatorException("failed");
+				}
+				return Collections.nCopies(maxResults, startOffset);
+			}
+		};
+		for (int i = 0; i < 10; i++) {
+			assertTrue(cursor.hasNext());
+			cursor.next();
+		}
+		try {
+			cursor.hasNext();
+			fail("expected the prefetch exception");
+		} catch (TranslatorException e) {
+			assertEquals("failed", e.getMessage());
+		}
+	}	
+
+	@Test public void testPrefetchClose() throws Exception {
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(1000, 10, 1, 0);
+		cursor.next();
+		cursor.close();
+		assertFalse(cursor.hasNext());
+		// the read ahead is bounded by the prefetch depth
+		assertTrue(cursor.requested.size() <= 3);
+	}	
+
+	@Test public void testPrefetchNoThreadAvailable() throws Exception {
+		Executor busy = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		};
+		ListPagedSearchCursor cursor = new ListPagedSearchCursor(25, 10, 1, busy, 0);
+		// the pages are read when needed instead
+		assertEquals(25, cursor.readAll());
+		assertEquals(3, cursor.requested.size());
+	}	
+
+}
@@ -136,6 +136,15 @@ public class TestPersonKeySearch {
 
 	}	
 	
+	@Test public void testLimitOnlyChild() throws Exception {
+		// a person has 2 phone numbers, so the limit ends within the children of the 3rd person
+		Select command = (Select)translationUtility.parseCommand("select number From PhoneNumber as T LIMIT 5"); //$NON-NLS-1$
+
+		
+		performTest(5, 1, command);
+
+	}	
+	
 
 	protected List<Object> performTest(int rowcnt, int colCount, Select command)
 			throws TranslatorException {
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
+
+@SuppressWarnings("nls")
+public class TestRowExtractor {
+	
+	@Test public void testExtract() throws Exception {
+		ClassRegistry registry = new ClassRegistry();
+		String[] names = new String[] {"tradeId", "name", "settled", "this"};
+		Class<?>[] types = new Class<?>[] {Long.class, String.class, Boolean.class, Object.class};
+		
+		RowExtractor extractor = registry.getRowExtractor(Trade.class, names, types);
+		
+		Trade t = new Trade(1, "TradeName 1", new ArrayList<Leg>(), new Date());
+		Object[] row = new Object[names.length];
+		extractor.extract(t, row);
+		
+		assertEquals(Arrays.asList(1L, "TradeName 1", false, t), Arrays.asList(row));
+		
+		// recurring queries reuse the extractor
+		assertSame(extractor, registry.getRowExtractor(Trade.class, names.clone(), types.clone()));
+		
+		// the extractor of other columns, or of another class, is another extractor
+		assertNotSame(extractor, registry.getRowExtractor(Trade.class, new String[] {"tradeId", "name"}, new Class<?>[] {Long.class, String.class}));
+		assertNotSame(extractor, registry.getRowExtractor(Trade.class, names, new Class<?>[] {String.class, String.class, Boolean.class, Object.class}));
+		
+		// the extractors of a class are discarded when it's unregistered
+		registry.unregisterClass(Trade.class);
+		assertNotSame(extractor, registry.getRowExtractor(Trade.class, names, types));
+	}
+	
+	@Test public void testConcurrentExtract() throws Exception {
+		final ClassRegistry registry = new ClassRegistry();
+		final String[] names = new String[] {"tradeId", "name"};
+		final Class<?>[] types = new Class<?>[] {Long.class, String.class};
+		
+		// the executions get the extractor and read rows at the same time
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<RowExtractor>> results = new ArrayList<Future<RowExtractor>>();
+			for (int i = 0; i < 8; i++) {
+				final long id = i;
+				results.add(executor.submit(new Callable<RowExtractor>() {
+					@Override
+					public RowExtractor call() throws Exception {
+						RowExtractor extractor = registry.getRowExtractor(Trade.class, names, types);
+						Object[] row = new Object[names.length];
+						extractor.extract(new Trade(id, "TradeName " + id, new ArrayList<Leg>(), new Date()), row);
+						assertEquals(Arrays.asList(id, "TradeName " + id), Arrays.asList(row));
+						return extractor;
+					}
+				}));
+			}
+			RowExtractor extractor = registry.getRowExtractor(Trade.class, names, types);
+			for (Future<RowExtractor> f : results) {
+				assertSame(extractor, f.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test public void testNoGetter() throws Exception {
+		ClassRegistry registry = new ClassRegistry();
+		
+		assertNull(registry.getRowExtractor(Trade.class, new String[] {"unknown"}, new Class<?>[] {String.class}));
+	}
+
+}
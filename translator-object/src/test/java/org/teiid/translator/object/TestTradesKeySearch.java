@@ -21,12 +21,26 @@
  */
 package org.teiid.translator.object;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.teiid.cdk.api.TranslationUtility;
 import org.teiid.language.Select;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.object.simpleMap.SimpleMapCacheExecutionFactory;
+import org.teiid.translator.object.testdata.person.PersonSchemaVDBUtility;
+import org.teiid.translator.object.testdata.trades.Leg;
+import org.teiid.translator.object.testdata.trades.Trade;
 import org.teiid.translator.object.testdata.trades.TradesCacheSource;
 import org.teiid.translator.object.testdata.trades.VDBUtility;
 
@@ -61,4 +75,204 @@ public class TestTradesKeySearch extends BasicSearchTest {
 	
 		performTest(command, 3, 5);
 	}	
+	
+	@Test public void testQueryLikeAndSettled() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select * From Trade_Object.Trade as T where TradeName like 'TradeName%' and Settled = true"); //$NON-NLS-1$
+		
+		performTest(command, 1, TradesCacheSource.NUM_OF_ALL_COLUMNS);
+	}	
+	
+	@Test public void testQueryOrderedCompareAndNot() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select * From Trade_Object.Trade as T where TradeID > 1 and not (TradeName = 'TradeName 3')"); //$NON-NLS-1$
+		
+		performTest(command, 1, TradesCacheSource.NUM_OF_ALL_COLUMNS);
+	}	
+	
+	@Test public void testQueryNotInOrIsNull() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select * From Trade_Object.Trade as T where TradeID not in (1, 2) or TradeName is null"); //$NON-NLS-1$
+		
+		performTest(command, 1, TradesCacheSource.NUM_OF_ALL_COLUMNS);
+	}	
+	
+	@Test public void testQueryOrderByLimit() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeID, TradeName From Trade_Object.Trade as T order by TradeName desc limit 2"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(command, 2, 2);
+		assertEquals("TradeName 3", ((List<?>) rows.get(0)).get(1));
+		assertEquals("TradeName 2", ((List<?>) rows.get(1)).get(1));
+	}	
+	
+	@Test public void testQueryOrderBy() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeID, TradeName From Trade_Object.Trade as T where TradeID > 1 order by TradeID"); //$NON-NLS-1$
+		
+		List<Object> rows = performTest(command, 2, 2);
+		assertEquals(2L, ((List<?>) rows.get(0)).get(0));
+		assertEquals(3L, ((List<?>) rows.get(1)).get(0));
+	}	
+	
+	@Test public void testAggregateResidualCriteria() throws Exception {						
+		// the search can't aggregate, so the execution aggregates the objects that match the criteria
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select count(*) From Trade_Object.Trade as T where TradeName is null"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 1, 1);
+		assertEquals(0, ((Number) ((List<?>) rows.get(0)).get(0)).intValue());
+		
+		command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select count(*), min(TradeID), max(TradeID), sum(TradeID), avg(TradeID) From Trade_Object.Trade as T where not (TradeName = 'TradeName 4')"); //$NON-NLS-1$
+		rows = performTest(command, 1, 5);
+		List<?> row = (List<?>) rows.get(0);
+		assertEquals(3, ((Number) row.get(0)).intValue());
+		assertEquals(1L, ((Number) row.get(1)).longValue());
+		assertEquals(3L, ((Number) row.get(2)).longValue());
+		assertEquals(6L, ((Number) row.get(3)).longValue());
+		assertEquals(2.0, ((Number) row.get(4)).doubleValue(), 0);
+	}	
+	
+	@Test public void testAggregateGroupByHaving() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select Settled, count(*) From Trade_Object.Trade as T group by Settled having count(*) > 1"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 1, 2);
+		assertEquals(Boolean.FALSE, ((List<?>) rows.get(0)).get(0));
+		assertEquals(2, ((Number) ((List<?>) rows.get(0)).get(1)).intValue());
+		
+		command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeName, count(*) as c From Trade_Object.Trade as T group by TradeName order by TradeName desc limit 2"); //$NON-NLS-1$
+		rows = performTest(command, 2, 2);
+		assertEquals("TradeName 3", ((List<?>) rows.get(0)).get(0));
+		assertEquals("TradeName 2", ((List<?>) rows.get(1)).get(0));
+	}	
+	
+	@Test public void testAggregateChildTable() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// the legs are counted, not the trades they belong to
+		Select command = (Select)nested.parseCommand("select count(*) From Leg where tradeId = 2"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 1, 1);
+		assertEquals(TradesCacheSource.NUMLEGS, ((Number) ((List<?>) rows.get(0)).get(0)).intValue());
+		
+		command = (Select)nested.parseCommand("select legName, count(*) From Leg group by legName having count(*) = 3 order by legName limit 2"); //$NON-NLS-1$
+		rows = performTest(command, 2, 2);
+		assertEquals("LegName 1", ((List<?>) rows.get(0)).get(0));
+		assertEquals("LegName 10", ((List<?>) rows.get(1)).get(0));
+		assertEquals(TradesCacheSource.NUMTRADES, ((Number) ((List<?>) rows.get(1)).get(1)).intValue());
+	}
+	
+	@Test public void testPlanReusedForOtherCriteriaValues() throws Exception {						
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeID, TradeName From Trade_Object.Trade as T where TradeName = 'TradeName 1'"); //$NON-NLS-1$
+		performTest(command, 1, 2);
+		assertEquals(0, factory.getPlanCacheHits());
+		assertEquals(1, factory.getPlanCacheMisses());
+		
+		command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeID, TradeName From Trade_Object.Trade as T where TradeName = 'TradeName 2'"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 1, 2);
+		assertEquals("TradeName 2", ((List<?>) rows.get(0)).get(1));
+		assertEquals(1, factory.getPlanCacheHits());
+		
+		command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select TradeName From Trade_Object.Trade as T where TradeName = 'TradeName 2'"); //$NON-NLS-1$
+		performTest(command, 1, 1);
+		assertEquals(2, factory.getPlanCacheMisses());
+	}
+	
+	@Test public void testQueryNestedChildTable() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// each trade has legs, and each leg has transactions
+		Select command = (Select)nested.parseCommand("select lineItem From LegTransaction"); //$NON-NLS-1$
+		performTest(command, TradesCacheSource.NUMTRADES * TradesCacheSource.NUMLEGS * TradesCacheSource.NUMTRANSACTIONS, 1);
+		
+		command = (Select)nested.parseCommand("select lineItem From LegTransaction where tradeId = 2"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, TradesCacheSource.NUMLEGS * TradesCacheSource.NUMTRANSACTIONS, 1);
+		assertEquals("Leg 1, transaction line item 1", ((List<?>) rows.get(0)).get(0));
+		
+		command = (Select)nested.parseCommand("select lineItem From LegTransaction limit 7"); //$NON-NLS-1$
+		rows = performTest(command, 7, 1);
+		assertEquals("Leg 2, transaction line item 2", ((List<?>) rows.get(6)).get(0));
+	}
+	
+	@Test public void testQueryChildTableIsNull() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// the criteria is on the attribute of the legs, so it's evaluated against each leg
+		Select command = (Select)nested.parseCommand("select legName From Leg where legName is null"); //$NON-NLS-1$
+		performTest(command, 0, 1);
+		
+		command = (Select)nested.parseCommand("select legName From Leg where legName is not null and tradeId = 2"); //$NON-NLS-1$
+		performTest(command, TradesCacheSource.NUMLEGS, 1);
+	}
+	
+	@Test public void testQueryChildTableNot() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		Select command = (Select)nested.parseCommand("select legName From Leg where not (legName = 'LegName 1')"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, TradesCacheSource.NUMTRADES * (TradesCacheSource.NUMLEGS - 1), 1);
+		assertEquals("LegName 2", ((List<?>) rows.get(0)).get(0));
+		
+		// the criteria on the trade and on its legs is combined
+		command = (Select)nested.parseCommand("select legName From Leg where tradeId = 1 or legName = 'LegName 3'"); //$NON-NLS-1$
+		performTest(command, TradesCacheSource.NUMLEGS + TradesCacheSource.NUMTRADES - 1, 1);
+	}
+	
+	@Test public void testQueryChildTableLikeAndCompare() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// the criteria the factory supports is evaluated against the legs, as well as the trades
+		Select command = (Select)nested.parseCommand("select legName From Leg where legName like 'LegName 1%' and tradeId > 1"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 2 * 2, 1);
+		assertEquals("LegName 10", ((List<?>) rows.get(1)).get(0));
+	}
+	
+	@Test public void testQueryChildTableByKey() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// the trades are read by key, so the legs are read without iterating all the trades in the cache
+		@SuppressWarnings("serial")
+		Map<Object, Object> cache = new HashMap<Object, Object>() {
+			@Override
+			public Collection<Object> values() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		TradesCacheSource.loadCache(cache);
+		ObjectConnection keyConn = TradesCacheSource.createConnection(cache);
+		
+		Select command = (Select)nested.parseCommand("select legName From Leg where tradeId in (3, 2)"); //$NON-NLS-1$
+		ObjectExecution exec = (ObjectExecution) factory.createExecution(command, context, nested.createRuntimeMetadata(), keyConn);
+		List<Object> rows = performTest(2 * TradesCacheSource.NUMLEGS, 1, exec);
+		assertEquals("LegName 1", ((List<?>) rows.get(0)).get(0));
+		
+		command = (Select)nested.parseCommand("select lineItem From LegTransaction where tradeId = 2"); //$NON-NLS-1$
+		exec = (ObjectExecution) factory.createExecution(command, context, nested.createRuntimeMetadata(), keyConn);
+		performTest(TradesCacheSource.NUMLEGS * TradesCacheSource.NUMTRANSACTIONS, 1, exec);
+	}
+	
+	@Test public void testQueryChildTableOrderByLimit() throws Exception {
+		TranslationUtility nested = PersonSchemaVDBUtility.createTranslationUtility("Trade_Object", "TradeNestedVDB", "tradeNestedChildMetadata.ddl");
+		
+		// the limit is on the sorted legs, not on the trades they're read from
+		Select command = (Select)nested.parseCommand("select legName From Leg where tradeId > 1 order by legName desc limit 3"); //$NON-NLS-1$
+		List<Object> rows = performTest(command, 3, 1);
+		assertEquals("LegName 9", ((List<?>) rows.get(0)).get(0));
+		assertEquals("LegName 9", ((List<?>) rows.get(1)).get(0));
+		assertEquals("LegName 8", ((List<?>) rows.get(2)).get(0));
+		
+		command = (Select)nested.parseCommand("select legName From Leg order by legName limit 12"); //$NON-NLS-1$
+		rows = performTest(command, 12, 1);
+		assertEquals("LegName 10", ((List<?>) rows.get(5)).get(0));
+		assertEquals("LegName 3", ((List<?>) rows.get(11)).get(0));
+	}
+	
+	@Test public void testQueryCacheChangedWhileRead() throws Exception {
+		Map<Object, Object> cache = TradesCacheSource.loadCache();
+		ObjectConnection changedConn = TradesCacheSource.createConnection(cache);
+		
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select * From Trade_Object.Trade as T where TradeName like 'TradeName%'"); //$NON-NLS-1$
+		ObjectExecution exec = (ObjectExecution) factory.createExecution(command, context, VDBUtility.RUNTIME_METADATA, changedConn);
+		exec.execute();
+		assertNotNull(exec.next());
+		
+		// the trades that are read were copied when the search was performed
+		changedConn.add(4L, new Trade(4, "TradeName 4", new ArrayList<Leg>(), new Date()));
+		int cnt = 1;
+		while (exec.next() != null) {
+			cnt++;
+		}
+		exec.close();
+		assertEquals(TradesCacheSource.NUMTRADES, cnt);
+	}
 }